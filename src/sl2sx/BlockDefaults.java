@@ -0,0 +1,57 @@
+package sl2sx;
+
+/**
+ *
+ * Class to model the Block Parameter Defaults of a Simulink Block Type. It is a flyweight:
+ * one instance per Type is shared by all the Blocks of the Type, that read through it the
+ * Parameters they do not define (see SLBlock). The Default Block is set once, when the
+ * BlockParameterDefaults are parsed, and it is not modified afterwards. The Blocks may be
+ * created before (i.e. by the parallel parser), they inherit the Defaults as soon as they are set.
+ */
+public class BlockDefaults {
+
+	// Simulink Block Type
+	private final String type;
+	// Block with the Default Parameters of the Type (null if not yet parsed)
+	private volatile SLBlock block = null;
+
+	 /**
+     * Default constructor: no Default Parameters yet.
+     *
+     * @param type
+     * 				Simulink Block Type.
+     */
+	public BlockDefaults(String type)
+	{
+		this.type = type;
+	}
+
+	/**
+     * Get the Simulink Block Type.
+     * @return A String that is the Type of the Blocks that share the Defaults.
+     */
+	public String getType()
+	{
+		return this.type;
+	}
+
+	 /**
+     * Set the Block with the Default Parameters of the Type.
+     *
+     * @param block
+     * 				The Default Block (as parsed in the BlockParameterDefaults).
+     */
+	public void setBlock(SLBlock block)
+	{
+		this.block = block;
+	}
+
+	/**
+     * Get the Block with the Default Parameters of the Type.
+     * @return The Default Block, null if the Type has no Default Parameters.
+     */
+	public SLBlock getBlock()
+	{
+		return this.block;
+	}
+}
@@ -0,0 +1,72 @@
+package sl2sx;
+
+import fr.imag.verimag.spaceex_moe.sspaceex.SxBind;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxComponentBase;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxLocation;
+
+/**
+ *
+ * Translator of a Simulink Block Type into a SpaceEx Base Component.
+ * The translators are registered by Type in BlockTranslators: the built-in ones are
+ * always present, and others can be plugged in through the java.util.ServiceLoader
+ * mechanism (a jar that lists its implementations in META-INF/services/sl2sx.BlockTranslator).
+ * A plugged translator replaces the built-in one of the same Type.
+ * A translator may be called concurrently on different Blocks (see SXBuilder.setPool),
+ * so it must not keep a state of its own.
+ */
+public interface BlockTranslator {
+
+	/**
+     * Get the Simulink Block Type handled by the translator.
+     * @return A String that is the Simulink BlockType (i.e. Constant || Gain || ...).
+     */
+	String getType();
+
+	/**
+     * Used to establish whether the Block Type is supported (a single Block may still
+     * be not supported, depending on its parameters).
+     * @return True, if the Blocks of this Type are supported.
+     */
+	boolean isSupported();
+
+	/**
+     * Get the number of the Input Ports of a Block without the Ports parameter.
+     * @return The default number of the Inports.
+     */
+	int getInPortNum();
+
+	/**
+     * Get the number of the Output Ports of a Block without the Ports parameter.
+     * @return The default number of the Outports.
+     */
+	int getOutPortNum();
+
+	/**
+     * Used to establish whether the Output Variables of the Base Component are Controlled.
+     * @return True, if the Outputs are Controlled (i.e. the Block has a state).
+     */
+	boolean isControlled();
+
+	 /**
+     * Complete the Base Component that models a Block: the Input and Output Parameters
+     * and the first Location (loc01) are yet created.
+     *
+     * @param block
+     * 				Is the Simulink Block to model.
+     * @param basic
+     * 				Is the Base Component of the Block.
+     * @param loc
+     * 				Is the first Location of the Base Component.
+     */
+	void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc);
+
+	 /**
+     * Map the Values of a Block (i.e. the Constant Value) to the Parameters of its Bind.
+     *
+     * @param block
+     * 				Is the Simulink Block to model.
+     * @param bind
+     * 				Is the Bind of the Base Component in the Network Component of the (Sub)System.
+     */
+	void createValueMapping(SLBlock block, SxBind bind);
+}
@@ -0,0 +1,490 @@
+package sl2sx;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.ServiceLoader;
+
+import fr.imag.verimag.spaceex_moe.sspaceex.Factory;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxBind;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxComponentBase;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxLocation;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxParam;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxTransition;
+
+/**
+ *
+ * Registry of the Block Translators, by Simulink Block Type: the lookup of the translator
+ * of a Block is a single hash access. The built-in translators are registered first (in the
+ * order used to list the supported Blocks), then the ones found by the ServiceLoader.
+ * The registry is never modified once published, so that it can be read by concurrent parsers.
+ */
+public final class BlockTranslators {
+
+	// Translator of the Types without a registered translator: ports only, not supported
+	private static final BlockTranslator UNKNOWN = new Basic(null, false, 1, 1);
+
+	// Type --> translator (replaced as a whole on each registration)
+	private static volatile LinkedHashMap<String, BlockTranslator> registry = load();
+
+	private BlockTranslators()
+	{
+	}
+
+	 /**
+     * Get the translator of a Simulink Block Type.
+     *
+     * @param type
+     * 				Simulink Block Type (i.e. Constant || Gain || ...).
+     * @return The registered translator, or a translator that models just the ports
+     * 				(not supported) if no translator is registered for the Type.
+     */
+	public static BlockTranslator get(String type)
+	{
+		BlockTranslator translator = registry.get(type);
+		return (translator == null) ? UNKNOWN : translator;
+	}
+
+	 /**
+     * Register a translator, replacing the one with the same Type (if any). The Blocks
+     * yet created keep their translator.
+     *
+     * @param translator
+     * 				The Block Translator to register.
+     */
+	public static synchronized void register(BlockTranslator translator)
+	{
+		LinkedHashMap<String, BlockTranslator> copy = new LinkedHashMap<String, BlockTranslator>(registry);
+		copy.put(translator.getType(), translator);
+		registry = copy;
+	}
+
+	/**
+     * Get the supported Simulink Block Types, in registration order.
+     * @return The list of the Types whose translator is supported.
+     */
+	public static ArrayList<String> getSupportedTypes()
+	{
+		ArrayList<String> types = new ArrayList<String>();
+		for (BlockTranslator translator : registry.values())
+			if (translator.isSupported())
+				types.add(translator.getType());
+		return types;
+	}
+
+	/**
+     * Get the Simulink Block Types with a registered translator, in registration order.
+     * @return The list of the registered Types.
+     */
+	public static ArrayList<String> getTypes()
+	{
+		return new ArrayList<String>(registry.keySet());
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Built-in translators, then the plugged ones
+	private static LinkedHashMap<String, BlockTranslator> load()
+	{
+		LinkedHashMap<String, BlockTranslator> translators = new LinkedHashMap<String, BlockTranslator>();
+		// ------------> Change this when new block is supported in a new version
+		add(translators, new Basic("SubSystem", true, 1, 1));
+		add(translators, new Basic("Inport", true, 0, 1));
+		add(translators, new Basic("Outport", true, 1, 0));
+		add(translators, new Constant());
+		add(translators, new Gain());
+		add(translators, new Sum());
+		add(translators, new Product());
+		add(translators, new Integrator());
+		add(translators, new Saturate());
+		add(translators, new DeadZone());
+		add(translators, new Logic());
+		// <------------------------------
+		add(translators, new GotoFrom("Goto"));
+		add(translators, new GotoFrom("From"));
+		add(translators, new Trigonometry());
+		add(translators, new Basic("Switch", false, 3, 1));
+		add(translators, new Basic("Scope", false, 1, 0));
+		add(translators, new Basic("Terminator", false, 1, 0));
+		add(translators, new Basic("FromWorkspace", false, 0, 1));
+
+		for (BlockTranslator translator : ServiceLoader.load(BlockTranslator.class))
+			add(translators, translator);
+		return translators;
+	}
+
+	private static void add(LinkedHashMap<String, BlockTranslator> translators, BlockTranslator translator)
+	{
+		translators.put(translator.getType(), translator);
+	}
+
+	// ----------------------------->> Built-in Translators
+
+	// Translator that models just the ports of the Block (one location, no dynamics)
+	private static class Basic implements BlockTranslator
+	{
+		private final String type;
+		private final boolean supported;
+		private final int inPortNum;
+		private final int outPortNum;
+
+		Basic(String type, boolean supported, int inPortNum, int outPortNum)
+		{
+			this.type = type;
+			this.supported = supported;
+			this.inPortNum = inPortNum;
+			this.outPortNum = outPortNum;
+		}
+
+		public String getType()
+		{
+			return this.type;
+		}
+
+		public boolean isSupported()
+		{
+			return this.supported;
+		}
+
+		public int getInPortNum()
+		{
+			return this.inPortNum;
+		}
+
+		public int getOutPortNum()
+		{
+			return this.outPortNum;
+		}
+
+		public boolean isControlled()
+		{
+			return false;
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc)
+		{
+		}
+
+		public void createValueMapping(SLBlock block, SxBind bind)
+		{
+		}
+	}
+
+	private static class Integrator extends Basic
+	{
+		Integrator()
+		{
+			super("Integrator", true, 1, 1);
+		}
+
+		// The output is the state of the Integrator
+		public boolean isControlled()
+		{
+			return true;
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			loc1.setFlow("Out1' == In1");
+			if (block.getExternalReset().equals("rising") ||
+					block.getExternalReset().equals("falling"))
+			{
+				// Add another Location to a Basic Component
+				SxLocation loc2 = Factory.creatLocation(basic);
+				loc2.setName("loc02");
+				// Add the invariant for the first location
+				loc1.setInvariant("In2<=0");
+				// Add the invariant for the second location
+				loc2.setInvariant("In2>=0");
+				// Add a transition from loc1 to loc2
+				SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
+				t1.setGuard("In2 == 0");
+				// Add a transition fron loc2 to loc1
+				SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
+				t2.setGuard("In2 <= 0");
+
+				// Add the corresponding reset
+				if (block.getExternalReset().equals("rising"))
+					// For rising reset
+					t2.setAssignment("Out1:=0");
+				else
+					// For falling reset
+					t1.setAssignment("Out1:=0");
+			}
+		}
+	}
+
+	private static class Constant extends Basic
+	{
+		Constant()
+		{
+			super("Constant", true, 0, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			SxParam constant = Factory.creatConstant(basic, "K");
+			constant.setLocal(false);
+			constant.setDynamics("constant");
+			// Invariant that models the constant blockType
+			loc1.setInvariant("Out1==K");
+		}
+
+		public void createValueMapping(SLBlock block, SxBind bind)
+		{
+			bind.getMap("K").setIsASymbolMap(true).setLinkValid(block.getValue());
+		}
+	}
+
+	private static class Gain extends Basic
+	{
+		Gain()
+		{
+			super("Gain", true, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			SxParam gain = Factory.creatConstant(basic, "Gain");
+			gain.setLocal(false);
+			gain.setDynamics("constant");
+			// Invariant that models the gain blockType
+			loc1.setInvariant("Out1==Gain*In1");
+		}
+
+		public void createValueMapping(SLBlock block, SxBind bind)
+		{
+			bind.getMap("Gain").setIsASymbolMap(true).setLinkValid(block.getGain());
+		}
+	}
+
+	// For Goto or From BlockType
+	private static class GotoFrom extends Basic
+	{
+		GotoFrom(String type)
+		{
+			super(type, false, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			// the invariant just propagate the input to the output
+			loc1.setInvariant("Out1==In1");
+		}
+	}
+
+	private static class Sum extends Basic
+	{
+		Sum()
+		{
+			super("Sum", true, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			String invariant = new String("Out1==");
+			// Take the sequence of the operations (+ or -) and make the invariant
+			for (int i=0; i<block.getInputs().length(); i++)
+			{
+				if (block.getInputs().charAt(i)=='+' && i==0)
+					invariant = invariant + "In1";
+				else
+					invariant = invariant + block.getInputs().charAt(i) + "In" + (i+1);
+			}
+
+			loc1.setInvariant(invariant);
+		}
+	}
+
+	private static class Product extends Basic
+	{
+		Product()
+		{
+			super("Product", true, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			String invariant = new String("Out1==");
+
+			try
+			{
+	             int inNum=Integer.parseInt(block.getInputs());
+
+	             for (int i=0; i<inNum; i++)
+	             {
+	     			if (i==0)
+						invariant = invariant + "In1";
+					else
+						invariant = invariant + "*" + "In" + (i+1);
+	             }
+	 		}
+			catch (NumberFormatException e)
+			{
+				// Take the sequence of the operations (+ or -) and make the invariant
+				for (int i=0; i<block.getInputs().length(); i++)
+				{
+					if (block.getInputs().charAt(i)=='*' && i==0)
+						invariant = invariant + "In1";
+					else
+						invariant = invariant + block.getInputs().charAt(i) + "In" + (i+1);
+
+				}
+			}
+			loc1.setInvariant(invariant);
+		}
+	}
+
+	private static class DeadZone extends Basic
+	{
+		DeadZone()
+		{
+			super("DeadZone", true, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			// Add Constants for Upper and Lower Value (mapped in the bind, so that the
+			// DeadZone Blocks share the component)
+			SxParam uV = Factory.creatConstant(basic, "uV");
+			uV.setLocal(false);
+			uV.setDynamics("constant");
+			SxParam lV = Factory.creatConstant(basic, "lV");
+			lV.setLocal(false);
+			lV.setDynamics("constant");
+
+			// Add the location to model the upper UL state
+			SxLocation loc2 = Factory.creatLocation(basic);
+			loc2.setName("loc02");
+			// Add the location to model the lower LL state
+			SxLocation loc3 = Factory.creatLocation(basic);
+			loc2.setName("loc03");
+
+			// Define the output for each the three states
+			loc1.setInvariant("Out1==0 && In1 >= lV && In1 <= uV");
+			loc2.setInvariant("Out1==In1 - uV && In1 >= uV");
+			loc3.setInvariant("Out1==In1 - lV && In1 <= lV");
+			// Define the transition among the states
+			SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
+			t1.setGuard("In1>= uV");
+			SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
+			t2.setGuard("In1 <= uV");
+			SxTransition t3 = Factory.creatTransition(basic, loc1, loc3);
+			t3.setGuard("In1 <= lV");
+			SxTransition t4 = Factory.creatTransition(basic, loc3, loc1);
+			t4.setGuard("In1 >= lV");
+		}
+
+		public void createValueMapping(SLBlock block, SxBind bind)
+		{
+			bind.getMap("uV").setIsASymbolMap(true).setLinkValid(block.getUpperValue());
+			bind.getMap("lV").setIsASymbolMap(true).setLinkValid(block.getLowerValue());
+		}
+	}
+
+	private static class Saturate extends Basic
+	{
+		Saturate()
+		{
+			super("Saturate", true, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			// Add Constants for Upper and Lower Limit
+			SxParam uL = Factory.creatConstant(basic, "uL");
+			uL.setLocal(false);
+			uL.setDynamics("constant");
+			SxParam lL = Factory.creatConstant(basic, "lL");
+			lL.setLocal(false);
+			lL.setDynamics("constant");
+
+			// Add the location to model the upper UL state
+			SxLocation loc2 = Factory.creatLocation(basic);
+			loc2.setName("loc02");
+			// Add the location to model the lower LL state
+			SxLocation loc3 = Factory.creatLocation(basic);
+			loc2.setName("loc03");
+
+			// Define the output for each the three states
+			loc1.setInvariant("Out1==In1 && In1 >= lL && In1 <= uL");
+			loc2.setInvariant("Out1==lL && In1 <=lL ");
+			loc3.setInvariant("Out1==uL && In1 >= uL");
+			// Define the transition among the states
+			SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
+			t1.setAssignment("Out1'==lL");
+			SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
+			t2.setAssignment("Out1'==In1");
+			SxTransition t3 = Factory.creatTransition(basic, loc1, loc3);
+			t3.setAssignment("Out1'==uL");
+			SxTransition t4 = Factory.creatTransition(basic, loc3, loc1);
+			t4.setAssignment("Out1'==In1");
+		}
+
+		public void createValueMapping(SLBlock block, SxBind bind)
+		{
+			bind.getMap("uL").setIsASymbolMap(true).setLinkValid(block.getUpperLimit());
+			bind.getMap("lL").setIsASymbolMap(true).setLinkValid(block.getLowerLimit());
+		}
+	}
+
+	private static class Trigonometry extends Basic
+	{
+		Trigonometry()
+		{
+			super("Trigonometry", false, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			if (block.getOperator().equals("sin"))
+				loc1.setInvariant("Out1==sin(In1)");
+			else if (block.getOperator().equals("cos"))
+				loc1.setInvariant("Out1==cos(In1)");
+		}
+	}
+
+	private static class Logic extends Basic
+	{
+		Logic()
+		{
+			super("Logic", true, 1, 1);
+		}
+
+		public void createBaseComponent(SLBlock block, SxComponentBase basic, SxLocation loc1)
+		{
+			// Add the location to model the False state
+			SxLocation loc2 = Factory.creatLocation(basic);
+			loc2.setName("loc02");
+
+			// Define the output for each of the two states
+			loc1.setInvariant("Out1==1");
+			loc2.setInvariant("Out1==0");
+
+			if (block.getOperator().equals("AND"))
+			{
+				int inNum=Integer.parseInt(block.getInputs());
+		        // One transition from loc1 to loc2 for each input
+				for (int i=0; i<inNum; i++)
+		        {
+		           	 SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
+		 			 String guard = new String("");
+					 guard = "In" + (i+1) + "==0";
+					 t1.setGuard(guard);
+					 t1.setAsap(true);
+		        }
+				// A single transition from loc2 to loc1
+		    	SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
+		    	String guard = new String("");
+		    	for (int i=0; i<inNum; i++)
+		        {
+		    		if (i<inNum-1)
+		    			guard = guard + "In" + (i+1) + "<>0 && ";
+		    		else
+		    			guard = guard + "In" + (i+1) + "<>0";
+				}
+		    	t2.setGuard(guard);
+			    t2.setAsap(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package sl2sx;
+
+import java.util.HashMap;
+
+/**
+ *
+ * Enumeration of the Simulink Block Types known by the translator (the ports of a Block
+ * of each Type are given by its BlockTranslator). The Types that need no specific
+ * handling are modeled by OTHER.
+ */
+public enum BlockType {
+
+	SUBSYSTEM("SubSystem", true),
+	INPORT("Inport", true),
+	OUTPORT("Outport", true),
+	CONSTANT("Constant", true),
+	GAIN("Gain", true),
+	DEAD_ZONE("DeadZone", true),
+	SATURATE("Saturate", true),
+	GOTO("Goto", true),
+	FROM("From", true),
+	SUM("Sum", true),
+	PRODUCT("Product", true),
+	INTEGRATOR("Integrator", true),
+	TRIGONOMETRY("Trigonometry", true),
+	LOGIC("Logic", true),
+	SWITCH("Switch", true),
+	SCOPE("Scope", false),
+	TERMINATOR("Terminator", false),
+	FROM_WORKSPACE("FromWorkspace", true),
+	OTHER(null, true);
+
+	// Simulink Type name --> BlockType
+	private static final HashMap<String, BlockType> byName = new HashMap<String, BlockType>();
+
+	static
+	{
+		for (BlockType type : values())
+			if (type.slName != null)
+				byName.put(type.slName, type);
+	}
+
+	// Name of the Type in the Simulink model (null for OTHER)
+	private final String slName;
+	// Identify the Types whose Blocks may inherit the Block Parameter Defaults
+	private final boolean defaultB;
+
+	private BlockType(String slName, boolean defaultB)
+	{
+		this.slName = slName;
+		this.defaultB = defaultB;
+	}
+
+	 /**
+     * Get the BlockType of a Simulink Block Type.
+     *
+     * @param type
+     * 				Simulink Block Type (i.e. Constant || Gain || ...).
+     * @return The corresponding BlockType, OTHER if the Type has no specific handling.
+     */
+	public static BlockType of(String type)
+	{
+		BlockType blockType = byName.get(type);
+		return (blockType == null) ? OTHER : blockType;
+	}
+
+	/**
+     * Get the name of the Type in the Simulink model.
+     * @return A String that is the Simulink Type, null for OTHER.
+     */
+	public String getSLName()
+	{
+		return this.slName;
+	}
+
+	/**
+     * Used to establish whether the Blocks of this Type may inherit the Block Parameter Defaults.
+     * @return True if a Block of this Type has Default Parameters Value until a parameter is set.
+     */
+	public boolean isDefault()
+	{
+		return this.defaultB;
+	}
+}
@@ -0,0 +1,219 @@
+package sl2sx;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Class to model the Graphical Shape of a Link: a sequence of vertices with absolute
+ * integer coordinates, stored in a single int buffer (x and y interleaved). The Simulink
+ * Points (increments, relative to the previous vertex) are converted while they are read,
+ * and the SpaceEx format ("x.0,y.0,...") is built once, by toString.
+ */
+public class Polyline {
+
+	// Coordinates of the vertices: x0, y0, x1, y1, ...
+	private int[] coords;
+	// Number of the used coordinates (twice the number of the vertices)
+	private int size = 0;
+	// Position from which the next relative increment is applied
+	private int x = 0;
+	private int y = 0;
+
+	 /**
+     * Default constructor: empty Polyline, starting from (0,0).
+     */
+	public Polyline()
+	{
+		this.coords = new int[8];
+	}
+
+	 /**
+     * Empty Polyline, starting from the given position (the position is not a vertex).
+     *
+     * @param x
+     * 				Horizontal starting Position.
+     * @param y
+     * 				Vertical starting Position.
+     */
+	public Polyline(int x, int y)
+	{
+		this();
+		this.x = x;
+		this.y = y;
+	}
+
+	 /**
+     * Parse a Link in the SpaceEx format.
+     *
+     * @param link
+     * 				Line Graphical Shape: comma separated coordinates ("x.0,y.0,...").
+     * @return The Polyline of the Link (empty if the Link is empty).
+     */
+	public static Polyline valueOf(String link)
+	{
+		Polyline polyline = new Polyline();
+		if (link.isEmpty())
+			return polyline;
+		String[] values = link.split(",");
+		if (values.length % 2 != 0)
+			throw new NumberFormatException("Invalid Link: " + link);
+		for (int i=0; i<values.length; i+=2)
+			polyline.add((int) Double.parseDouble(values[i].trim()), (int) Double.parseDouble(values[i+1].trim()));
+		return polyline;
+	}
+
+	 /**
+     * Put together two Polylines (the vertices of the first one, then the vertices of the
+     * second one). The Polylines are not modified: if one of them is empty, the other one
+     * is returned.
+     *
+     * @param first
+     * 				The first Polyline (null is empty).
+     * @param second
+     * 				The second Polyline (null is empty).
+     * @return The joined Polyline (null if both are empty).
+     */
+	public static Polyline join(Polyline first, Polyline second)
+	{
+		if (first == null || first.isEmpty())
+			return second;
+		if (second == null || second.isEmpty())
+			return first;
+		Polyline polyline = new Polyline();
+		polyline.coords = Arrays.copyOf(first.coords, first.size + second.size);
+		System.arraycopy(second.coords, 0, polyline.coords, first.size, second.size);
+		polyline.size = first.size + second.size;
+		polyline.x = second.x;
+		polyline.y = second.y;
+		return polyline;
+	}
+
+	 /**
+     * Add a vertex, with absolute coordinates.
+     *
+     * @param x
+     * 				Horizontal Position.
+     * @param y
+     * 				Vertical Position.
+     */
+	public void add(int x, int y)
+	{
+		if (size + 2 > coords.length)
+			coords = Arrays.copyOf(coords, 2 * coords.length);
+		coords[size++] = x;
+		coords[size++] = y;
+		this.x = x;
+		this.y = y;
+	}
+
+	 /**
+     * Add the vertices given as Simulink Points: each point is an increment with respect
+     * to the previous vertex (or the starting position).
+     *
+     * @param points
+     * 				Line Graphical Vertex, as in the Simulink model (i.e. "[20, 0; 0, 35][0, 40]").
+     */
+	public void addRelative(String points)
+	{
+		int len = points.length();
+		int i = 0;
+		// Increment being read: x (first) or y (second)
+		boolean first = true;
+		int incX = 0;
+		while (i < len)
+		{
+			char c = points.charAt(i);
+			if (c == '[' || c == ']' || c == ',' || c == ';' || c == ' ')
+			{
+				i++;
+				continue;
+			}
+			boolean negative = (c == '-');
+			if (negative)
+				i++;
+			int start = i;
+			int value = 0;
+			while (i < len && points.charAt(i) >= '0' && points.charAt(i) <= '9')
+				value = 10 * value + (points.charAt(i++) - '0');
+			if (i == start)
+				throw new NumberFormatException("Invalid Points: " + points);
+			if (negative)
+				value = -value;
+			if (first)
+				incX = value;
+			else
+				add(this.x + incX, this.y + value);
+			first = !first;
+		}
+		if (!first)
+			throw new NumberFormatException("Invalid Points: " + points);
+	}
+
+	 /**
+     * Reverse the order of the vertices.
+     */
+	public void reverse()
+	{
+		for (int i=0, j=size-2; i<j; i+=2, j-=2)
+		{
+			int tx = coords[i];
+			int ty = coords[i+1];
+			coords[i] = coords[j];
+			coords[i+1] = coords[j+1];
+			coords[j] = tx;
+			coords[j+1] = ty;
+		}
+	}
+
+	/**
+     * Check whether the Polyline has no vertices.
+     * @return True, if the Polyline is empty.
+     */
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	/**
+     * Get the number of the vertices.
+     * @return The number of the vertices.
+     */
+	public int getVertexNum()
+	{
+		return this.size / 2;
+	}
+
+	/**
+     * Get the Horizontal Position of a vertex.
+     * @return The Horizontal Position of the i-th vertex.
+     */
+	public int getX(int i)
+	{
+		return this.coords[2*i];
+	}
+
+	/**
+     * Get the Vertical Position of a vertex.
+     * @return The Vertical Position of the i-th vertex.
+     */
+	public int getY(int i)
+	{
+		return this.coords[2*i+1];
+	}
+
+	/**
+     * Get the Link in the SpaceEx format.
+     * @return The comma separated coordinates ("x.0,y.0,..."), empty if there are no vertices.
+     */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder(8 * size);
+		for (int i=0; i<size; i++)
+		{
+			if (i > 0)
+				sb.append(',');
+			sb.append(coords[i]).append(".0");
+		}
+		return sb.toString();
+	}
+}
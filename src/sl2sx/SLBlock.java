@@ -1,4 +1,7 @@
 package sl2sx;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 
 
@@ -11,101 +14,73 @@ import java.util.ArrayList;
 public class SLBlock {
 
 	/** Block name */
-	private String name=new String();
+	private String name;
+	// Id of the Block name in the Symbol Table (-1 if not yet added to a System)
+	private int id=-1;
 	// Block Type (i.e. Constant || Gain || ...)
-	private String type=new String();
+	private String type;
+	// Block Type, as enumeration (OTHER for the Types without specific handling)
+	private BlockType blockType;
+	// Translator of the Block Type into SpaceEx
+	private BlockTranslator translator;
 	// Extended Name used to avoid ambiguity with the names
-	private String extendedType=new String();
-	// Block Ports (same format as the SL)
-	private String ports=new String();
-	// Block Position (same format as the SL)
-	private String position=new String();
-	// Block Value (same format as the SL. Usually related to a Constant BlockType)
-	private String value=new String();
-	// Block Gain (same format as the SL. Usually related to a Gain BlockType)
-	private String gain=new String();
-	// Block Inputs (same format as the SL. Usually related to a Sum BlockType)
-	private String inputs=new String();
-	// Block Outputs (same format as the SL. Usually related to a...I don't remember ! :-) )
-	private String outputs=new String();
-	// Block Criteria (same format as the SL. Usually related to a Switch BlockType)
-	private String criteria=new String();
-	// Block Threshold (same format as the SL. Usually related to a Switch BlockType)
-	private String threshold=new String();
-	// Block externalReset (same format as the SL. Usually related to an Integrator BlockType)
-	private String externalReset=new String();
-	// Integrator Initial Condition (same format as the SL. Related to an Integrator BlockType)
-	private String initialCondition=new String();
-	// Block LowerValue (same format as the SL. Usually related to a DeadZone BlockType)
-	private String lowerValue=new String();
-	// Block UpperValue (same format as the SL. Usually related to a DeadZone BlockType)
-	private String upperValue=new String();
-	// Block LowerLimit (same format as the SL. Usually related to a Saturate BlockType)
-	private String lowerLimit=new String();
-	// Block UpperValue (same format as the SL. Usually related to a Saturate BlockType)
-	private String upperLimit=new String();
-		
-	// Block GotoTag (same format as the SL. Usually related to a Goto or From BlockType)
-	private String gotoTag=new String();	
-	// Trigonometry Operator
-	private String operator=new String();
+	private String extendedType;
+
+	// Parameters of the Block (same format as the SL), stored only if present
+	private static final int VALUE = 0;
+	private static final int GAIN = 1;
+	private static final int INPUTS = 2;
+	private static final int OUTPUTS = 3;
+	private static final int CRITERIA = 4;
+	private static final int THRESHOLD = 5;
+	private static final int EXTERNAL_RESET = 6;
+	private static final int INITIAL_CONDITION = 7;
+	private static final int LOWER_VALUE = 8;
+	private static final int UPPER_VALUE = 9;
+	private static final int LOWER_LIMIT = 10;
+	private static final int UPPER_LIMIT = 11;
+	private static final int GOTO_TAG = 12;
+	private static final int OPERATOR = 13;
+	private static final int PARAM_NUM = 14;
+	// Values of the Parameters, indexed as above (null until a parameter is set)
+	private String[] params = null;
+	// Block Parameter Defaults of the Type, read while no Parameter is set (null if none)
+	private BlockDefaults defaults = null;
 	
 	// X Left-upper block position. Derived from Positions
-	private String x1Pos=new String();
+	private int x1Pos=0;
 	// Y Left-upper block position. Derived from Positions
-	private String y1Pos=new String();
-	// Block Width. Derived by Positions
-	private String width=new String();
-	// Block Height. Derived by Positions
-	private String height=new String();
+	private int y1Pos=0;
+	// Block Width. Derived by Positions (0 for the In/OutPorts)
+	private int width=0;
+	// Block Height. Derived by Positions (0 for the In/OutPorts)
+	private int height=0;
 	// Number of the Input Variables. Derived by Ports.
 	private int inPortNum=0;
 	// Number of the Output Variables. Derived by Ports.
 	private int outPortNum=0;
-	// Number of additional ports. Derived by Ports.
-	private int extraPortNum=0;
-	// Identify an InPort Block. Derived by Type.
-	private boolean inPort=false;
-	// Identify an OutPort Block. Derived by Type.
-	private boolean outPort=false;
-	// Identify a SubSystem Block. Derived by Type.	
-	private boolean subSys=false;
 	// Identify a Block with default parameters.
 	private boolean defaultB=true;
 	// Identify a supported blocks.
 	private boolean supported=true;
-	
-	private boolean constantType=false;
-	private boolean gainType=false;
-	private boolean sumType=false;
-	private boolean productType=false;
-	private boolean integratorType=false;
-	private boolean switchType=false;
-	private boolean fromType=false;
-	private boolean gotoType=false;
-	private boolean deadZoneType=false;
-	private boolean scopeType=false;
-	private boolean trigonometryType=false;
+	// Identify a Block with BlockMirror on.
 	private boolean blockMirror=false;
-	private boolean saturateType=false;
-	private boolean logicType=false;
 	
 	
 	private int hShift = 150;
 	
     /**
-     * Default constructor.
+     * Default constructor: the ports and the support of the Block are given by the 
+     * translator registered for its Type (see BlockTranslators).
      * 
      * @param name
      * 				Simulink Block Name.
      * @param type
      * 				Type of the SL Block.
-     * @supportedBlocks
-     * 				List of the supported Simulink Blocks.
      * @hShift
      *				Horizontal Shift in the SX Graphical Editor.
      */
-	public SLBlock(String name, String type, ArrayList<String> supportedBlocks, int hShift)
+	public SLBlock(String name, String type, int hShift)
 	{		
 		this.name = name.replace(" ", "_");
 		this.name = this.name.replace("-", "_");
@@ -115,76 +90,33 @@ public class SLBlock {
 		
 		this.extendedType = this.type;
 		
-		this.inPortNum=1;
-		this.outPortNum=1;
-		
 		this.hShift = hShift;
 		
-		if (type.equals("SubSystem"))
-			this.subSys = true;		
-		else if (type.equals("Inport"))
-		{
-			this.inPort=true;
-			this.inPortNum=0;
-		}
-		else if (type.equals("Outport"))
-		{
-			this.outPort=true;
-			this.outPortNum=0;
-		}
-		else if (type.equals("Constant"))
-		{
-			this.inPortNum=0;
-			this.constantType=true;
-		}
-		//else if (type.equals("Gain") || type.equals("DeadZone") 
-		//		|| type.equals("Goto") || type.equals("From") 
-		//		|| type.equals("Rounding"))
-		//{
-		//	this.inPortNum=1;
-		//	this.outPortNum=1;
-		else if (type.equals("Gain"))
-				this.gainType=true;
-			else if (type.equals("DeadZone"))
-				this.deadZoneType=true;
-			else if (type.equals("Saturate"))
-				this.saturateType=true;
-			else if (type.equals("Goto"))
-				this.gotoType=true;
-			else if (type.equals("From"))
-				this.fromType=true;
-		//}
-		else if (type.equals("Sum"))
-				this.sumType = true;
-		else if (type.equals("Product"))
-			this.productType = true;
-		else if (type.equals("Integrator"))
-			this.integratorType = true;
-		else if (type.equals("Trigonometry"))
-			this.trigonometryType = true;
-		else if (type.equals("Logic"))
-			this.logicType = true;
-		
-		else if (type.equals("Switch"))
-		{
-			this.inPortNum=3;
-			this.switchType=true;
-		}
-		else if (type.equals("Scope"))
-		{
-			this.outPortNum=0;
-			this.scopeType=true;
-			this.defaultB = false;
-		}
-		else if (type.equals("Terminator"))
-		{
-			this.outPortNum=0;
-			this.defaultB = false;
-		}
-		else if (type.equals("FromWorkspace"))
-			this.inPortNum=0;
-		if (!supportedBlocks.contains(this.type))
-			this.supported = false;
+		// Default Ports and Parameters of the Type
+		this.blockType = BlockType.of(type);
+		this.translator = BlockTranslators.get(this.type);
+		this.inPortNum = this.translator.getInPortNum();
+		this.outPortNum = this.translator.getOutPortNum();
+		this.defaultB = this.blockType.isDefault();
+		this.supported = this.translator.isSupported();
+	}
+	
+    /**
+     * Constructor with an explicit list of the supported Blocks.
+     * 
+     * @param name
+     * 				Simulink Block Name.
+     * @param type
+     * 				Type of the SL Block.
+     * @supportedBlocks
+     * 				List of the supported Simulink Blocks.
+     * @hShift
+     *				Horizontal Shift in the SX Graphical Editor.
+     */
+	public SLBlock(String name, String type, ArrayList<String> supportedBlocks, int hShift)
+	{		
+		this(name, type, hShift);
+		this.supported = supportedBlocks.contains(this.type);
 	}
 	
     /**
@@ -208,6 +140,26 @@ public class SLBlock {
 		return this.name;
 	}
 	
+    /**
+     * Set the id of the Block Name in the Symbol Table.
+     * 
+     * @param id
+     * 				Id of the Block Name.
+     */
+	public void setId(int id)
+	{
+		this.id = id;
+	}
+	
+    /**
+     * Get the id of the Block Name in the Symbol Table.
+     * @return An Integer that is the id of the Block Name (-1 if the block is not in a System).
+     */
+	public int getId()
+	{
+		return this.id;
+	}
+	
 	 /**
      * Set the Type of the SL Block.
      * 
@@ -217,31 +169,26 @@ public class SLBlock {
 	public void setType(String type)
 	{
 		this.type = type;
-		
-		if (type.equals("Constant"))
-			this.constantType=true;
-		else if (type.equals("Gain"))
-			this.gainType=true;
-		else if (type.equals("Sum"))	
-			this.sumType=true;
-		else if (type.equals("Product"))	
-			this.productType=true;
-		else if (type.equals("Switch"))	
-			this.switchType=true;
-		else if (type.equals("Integrator"))	
-			this.integratorType=true;
-		else if (type.equals("DeadZone"))
-			this.deadZoneType=true;
-		else if (type.equals("Logic"))
-			this.logicType=true;
-		else if (type.equals("Goto"))
-			this.gotoType=true;
-		else if (type.equals("From"))
-			this.fromType=true;
-		else if (type.equals("Trigonometry"))	
-			this.trigonometryType=true;
-		else if (type.equals("Scope"))	
-			this.scopeType=true;
+		this.blockType = BlockType.of(type);
+		this.translator = BlockTranslators.get(type);
+	}
+	
+	/**
+     * Get the Block Type, as enumeration.
+     * @return The BlockType of the modeled SL Block (OTHER if the Type has no specific handling).
+     */
+	public BlockType getBlockType()
+	{
+		return this.blockType;
+	}
+	
+	/**
+     * Get the Translator of the Block Type into SpaceEx.
+     * @return The BlockTranslator registered for the Type of the modeled SL Block.
+     */
+	public BlockTranslator getTranslator()
+	{
+		return this.translator;
 	}
 	
 	/**
@@ -281,9 +228,8 @@ public class SLBlock {
      */
 	public void setPosition(String position)
 	{
-		this.position = position;
 		// Compute the effective Block Position and Dimension
-		setPosAndDim();
+		setPosAndDim(position);
 	}
 	
 	/**
@@ -292,7 +238,7 @@ public class SLBlock {
      */
 	public String getX1Pos()
 	{
-		return this.x1Pos;
+		return String.valueOf(this.x1Pos);
 	}
 	
 	/**
@@ -301,23 +247,59 @@ public class SLBlock {
      */
 	public String getY1Pos()
 	{
-		return this.y1Pos;
+		return String.valueOf(this.y1Pos);
 	}
 
 	/**
      * Get the Block Graphical Width.
-     * @return A String that is the Graphical Width of the block.
+     * @return A String that is the Graphical Width of the block (empty for the In/OutPorts).
      */
 	public String getWidth()
 	{
-		return this.width;
+		return (this.isInPort() || this.isOutPort()) ? "" : String.valueOf(this.width);
 	}
 
 	/**
      * Get the Block Graphical Height.
-     * @return A String that is the Graphical Height of the block.
+     * @return A String that is the Graphical Height of the block (empty for the In/OutPorts).
      */
 	public String getHeight()
+	{
+		return (this.isInPort() || this.isOutPort()) ? "" : String.valueOf(this.height);
+	}
+	
+	/**
+     * Get the x Left-Upper Block Graphical Position.
+     * @return An Integer that is the x Left-Upper Block Graphical Position.
+     */
+	public int getX()
+	{
+		return this.x1Pos;
+	}
+	
+	/**
+     * Get the y Left-Upper Block Graphical Position.
+     * @return An Integer that is the y Left-Upper Block Graphical Position.
+     */
+	public int getY()
+	{
+		return this.y1Pos;
+	}
+	
+	/**
+     * Get the Block Graphical Width.
+     * @return An Integer that is the Graphical Width of the block (0 for the In/OutPorts).
+     */
+	public int getW()
+	{
+		return this.width;
+	}
+	
+	/**
+     * Get the Block Graphical Height.
+     * @return An Integer that is the Graphical Height of the block (0 for the In/OutPorts).
+     */
+	public int getH()
 	{
 		return this.height;
 	}
@@ -347,9 +329,8 @@ public class SLBlock {
      */
 	public void setPorts(String ports)
 	{
-		this.ports = ports;
 		// Set the number of Input and Output Variables
-		setPortsNum();		
+		setPortsNum(ports);		
 	}
 	
 	 /**
@@ -360,7 +341,7 @@ public class SLBlock {
      */
 	public void setValue(String value)
 	{
-		this.value = value;
+		setParam(VALUE, value);
 		this.defaultB = false;
 	}
 	
@@ -370,7 +351,7 @@ public class SLBlock {
      */
 	public String getValue()
 	{
-		return this.value;
+		return getParam(VALUE);
 	}
 	
 	 /**
@@ -381,7 +362,7 @@ public class SLBlock {
      */
 	public void setGain(String gain)
 	{
-		this.gain = gain;
+		setParam(GAIN, gain);
 		this.defaultB = false;
 	}
 	
@@ -391,7 +372,7 @@ public class SLBlock {
      */
 	public String getGain()
 	{
-		return this.gain;
+		return getParam(GAIN);
 	}
 
 	 /**
@@ -402,7 +383,7 @@ public class SLBlock {
      */
 	public void setInputs(String inputs)
 	{
-		this.inputs = inputs.replace("|", "");
+		setParam(INPUTS, inputs.replace("|", ""));
 		// Ignore for Logic Block
 		if (!this.isLogic())
 			this.defaultB = false;
@@ -414,7 +395,7 @@ public class SLBlock {
      */
 	public String getInputs()
 	{
-		return this.inputs;
+		return getParam(INPUTS);
 	}
 
 	 /**
@@ -425,7 +406,7 @@ public class SLBlock {
      */
 	public void setOutputs(String outputs)
 	{
-		this.outputs = outputs;
+		setParam(OUTPUTS, outputs);
 		this.defaultB = false;
 	}
 	
@@ -435,7 +416,7 @@ public class SLBlock {
      */
 	public String getOutputs()
 	{
-		return this.outputs;
+		return getParam(OUTPUTS);
 	}
 	
 	 /**
@@ -448,7 +429,7 @@ public class SLBlock {
 	public void setCriteria(String criteria)
 	{
 		// Take the sign of the inequality of the form "u2 >= Threshold"
-		this.criteria=criteria.substring(criteria.indexOf(" ")+1, criteria.indexOf(" ", criteria.indexOf(" ")+1));	
+		setParam(CRITERIA, criteria.substring(criteria.indexOf(" ")+1, criteria.indexOf(" ", criteria.indexOf(" ")+1)));	
 		this.defaultB = false;
 		if (criteria.equals("~="))
 			this.supported = false;
@@ -460,7 +441,7 @@ public class SLBlock {
      */
 	public String getCriteria()
 	{
-		return this.criteria;
+		return getParam(CRITERIA);
 	}
 
 	 /**
@@ -471,7 +452,7 @@ public class SLBlock {
      */
 	public void setThreshold(String threshold)
 	{
-		this.threshold = threshold;
+		setParam(THRESHOLD, threshold);
 		this.defaultB = false;
 	}
 	
@@ -481,7 +462,7 @@ public class SLBlock {
      */
 	public String getThreshold()
 	{
-		return this.threshold;
+		return getParam(THRESHOLD);
 	}
 	
 	 /**
@@ -493,7 +474,7 @@ public class SLBlock {
      */
 	public void setExternalReset(String externalReset)
 	{
-		this.externalReset = externalReset;
+		setParam(EXTERNAL_RESET, externalReset);
 		this.defaultB = false;
 		// If is present, the block is not supported
 		this.supported = false;	
@@ -505,7 +486,7 @@ public class SLBlock {
      */
 	public String getExternalReset()
 	{
-		return this.externalReset;
+		return getParam(EXTERNAL_RESET);
 	}
 
 	 /**
@@ -516,7 +497,7 @@ public class SLBlock {
      */
 	public void setInitialCondition(String initialCondition)
 	{
-		this.initialCondition = initialCondition;
+		setParam(INITIAL_CONDITION, initialCondition);
 		this.defaultB = false;
 	}
 
@@ -526,7 +507,7 @@ public class SLBlock {
      */
 	public String getInitialCondition()
 	{
-		return this.initialCondition;
+		return getParam(INITIAL_CONDITION);
 	}
 	
 	 /**
@@ -537,7 +518,7 @@ public class SLBlock {
      */
 	public void setLowerValue(String lowerValue)
 	{
-		this.lowerValue = lowerValue;
+		setParam(LOWER_VALUE, lowerValue);
 		this.defaultB = false;
 	}
 	
@@ -547,7 +528,7 @@ public class SLBlock {
      */
 	public String getLowerValue()
 	{
-		return this.lowerValue;
+		return getParam(LOWER_VALUE);
 	}
 	
 	 /**
@@ -558,7 +539,7 @@ public class SLBlock {
      */
 	public void setUpperValue(String upperValue)
 	{
-		this.upperValue = upperValue;
+		setParam(UPPER_VALUE, upperValue);
 		this.defaultB = false;
 	}
 
@@ -568,7 +549,7 @@ public class SLBlock {
      */
 	public String getUpperValue()
 	{
-		return this.upperValue;
+		return getParam(UPPER_VALUE);
 	}
 
 	
@@ -580,7 +561,7 @@ public class SLBlock {
      */
 	public void setLowerLimit(String lowerLimit)
 	{
-		this.lowerLimit = lowerLimit;
+		setParam(LOWER_LIMIT, lowerLimit);
 		this.defaultB = false;
 	}
 	
@@ -590,7 +571,7 @@ public class SLBlock {
      */
 	public String getLowerLimit()
 	{
-		return this.lowerLimit;
+		return getParam(LOWER_LIMIT);
 	}
 	
 	 /**
@@ -601,7 +582,7 @@ public class SLBlock {
      */
 	public void setUpperLimit(String upperLimit)
 	{
-		this.upperLimit = upperLimit;
+		setParam(UPPER_LIMIT, upperLimit);
 		this.defaultB = false;
 	}
 
@@ -611,7 +592,7 @@ public class SLBlock {
      */
 	public String getUpperLimit()
 	{
-		return this.upperLimit;
+		return getParam(UPPER_LIMIT);
 	}
 
 	
@@ -624,7 +605,7 @@ public class SLBlock {
      */
 	public void setGotoTag(String gotoTag)
 	{
-		this.gotoTag = gotoTag;
+		setParam(GOTO_TAG, gotoTag);
 		this.defaultB = false;
 		// Add one Input Variable and one Output Variable
 		this.setPorts("[1, 1]");
@@ -636,7 +617,7 @@ public class SLBlock {
      */
 	public String getGotoTag()
 	{
-		return this.gotoTag;
+		return getParam(GOTO_TAG);
 	}
 	
 	 /**
@@ -648,7 +629,7 @@ public class SLBlock {
      */
 	public void setOperator (String operator)
 	{
-		this.operator = operator;
+		setParam(OPERATOR, operator);
 		if (!operator.equals("cos") && !operator.equals("sin") && !operator.equals("AND"))
 			this.supported = false;
 		this.defaultB = false;
@@ -661,7 +642,7 @@ public class SLBlock {
      */
 	public String getOperator()
 	{
-		return this.operator;
+		return getParam(OPERATOR);
 	}
 	
 	/**
@@ -670,7 +651,7 @@ public class SLBlock {
      */
 	public boolean isInPort()
 	{
-		return this.inPort;
+		return this.blockType == BlockType.INPORT;
 	}
 	
 	/**
@@ -679,7 +660,7 @@ public class SLBlock {
      */
 	public boolean isOutPort()
 	{
-		return this.outPort;
+		return this.blockType == BlockType.OUTPORT;
 	}
 	
 	/**
@@ -688,7 +669,7 @@ public class SLBlock {
      */
 	public boolean isConstant()
 	{
-		return this.constantType;
+		return this.blockType == BlockType.CONSTANT;
 	}
 	
 	/**
@@ -697,7 +678,7 @@ public class SLBlock {
      */
 	public boolean isGain()
 	{
-		return this.gainType;
+		return this.blockType == BlockType.GAIN;
 	}
 	
 	/**
@@ -706,7 +687,7 @@ public class SLBlock {
      */
 	public boolean isSum()
 	{
-		return this.sumType;
+		return this.blockType == BlockType.SUM;
 	}
 	
 	/**
@@ -715,7 +696,7 @@ public class SLBlock {
      */
 	public boolean isProduct()
 	{
-		return this.productType;
+		return this.blockType == BlockType.PRODUCT;
 	}
 	
 	/**
@@ -724,7 +705,7 @@ public class SLBlock {
      */
 	public boolean isIntegrator()
 	{
-		return this.integratorType;
+		return this.blockType == BlockType.INTEGRATOR;
 	}
 	
 	/**
@@ -733,7 +714,7 @@ public class SLBlock {
      */
 	public boolean isSwitch()
 	{
-		return this.switchType;
+		return this.blockType == BlockType.SWITCH;
 	}
 	
 	/**
@@ -742,7 +723,7 @@ public class SLBlock {
      */
 	public boolean isFrom()
 	{
-		return this.fromType;
+		return this.blockType == BlockType.FROM;
 	}
 	
 	/**
@@ -751,7 +732,7 @@ public class SLBlock {
      */
 	public boolean isGoto()
 	{
-		return this.gotoType;
+		return this.blockType == BlockType.GOTO;
 	}
 	
 	/**
@@ -760,7 +741,7 @@ public class SLBlock {
      */
 	public boolean isDeadZone()
 	{
-		return this.deadZoneType;
+		return this.blockType == BlockType.DEAD_ZONE;
 	}
 	
 	/**
@@ -769,7 +750,7 @@ public class SLBlock {
      */
 	public boolean isLogic()
 	{
-		return this.logicType;
+		return this.blockType == BlockType.LOGIC;
 	}
 	
 	/**
@@ -778,7 +759,7 @@ public class SLBlock {
      */
 	public boolean isSaturate()
 	{
-		return this.saturateType;
+		return this.blockType == BlockType.SATURATE;
 	}
 	
 	/**
@@ -787,7 +768,7 @@ public class SLBlock {
      */
 	public boolean isScope()
 	{
-		return this.scopeType;
+		return this.blockType == BlockType.SCOPE;
 	}
 
 	/**
@@ -796,7 +777,7 @@ public class SLBlock {
      */
 	public boolean isTrigonometry()
 	{
-		return this.trigonometryType;
+		return this.blockType == BlockType.TRIGONOMETRY;
 	}
 	
 	/**
@@ -823,7 +804,7 @@ public class SLBlock {
      */
 	public boolean isSubSys()
 	{
-		return this.subSys;
+		return this.blockType == BlockType.SUBSYSTEM;
 	}
 	
 	/**
@@ -832,7 +813,8 @@ public class SLBlock {
      */
 	public boolean isDefault()
 	{
-		return this.defaultB;
+		SLBlock inherited = inherited();
+		return (inherited == null) ? this.defaultB : inherited.isDefault();
 	}
 	
 	/**
@@ -841,7 +823,21 @@ public class SLBlock {
      */
 	public boolean isSupported()
 	{
-		return this.supported;
+		SLBlock inherited = inherited();
+		return (inherited == null) ? this.supported : inherited.isSupported();
+	}
+	
+	 /**
+     * Set the Block Parameter Defaults of the Block Type: as long as the Block defines no
+     * Parameter (see isDefault), its Parameters are read from the Default Block (except the
+     * Initial Condition), as well as its default and support status.
+     * 
+     * @param defaults
+     * 				The Block Parameter Defaults shared by the Blocks of the same Type.
+     */
+	public void setDefaults(BlockDefaults defaults)
+	{
+		this.defaults = defaults;
 	}
 	
 	 /**
@@ -852,19 +848,11 @@ public class SLBlock {
      */
 	public void copy(SLBlock block)
 	{
-		this.value=block.getValue();
-		this.gain=block.getGain();
-		this.inputs=block.getInputs();
-		this.outputs=block.getOutputs();
-		this.criteria=block.getCriteria();
-		this.threshold=block.getThreshold();
-		this.externalReset=block.getExternalReset();
-		this.lowerValue=block.getLowerValue();
-		this.upperValue=block.getUpperValue();
-		this.lowerLimit=block.getLowerLimit();
-		this.upperLimit=block.getUpperLimit();
-		this.gotoTag=block.getGotoTag();
-		this.operator=block.getOperator();
+		// The Initial Condition is not inherited
+		String initialCondition = this.getInitialCondition();
+		this.params = (block.params == null) ? null : block.params.clone();
+		if (this.params != null || !initialCondition.isEmpty())
+			setParam(INITIAL_CONDITION, initialCondition);
 
 		//this.x1Pos=block.getX1Pos();
 		//this.y1Pos=block.getY1Pos();
@@ -872,24 +860,8 @@ public class SLBlock {
 		//this.height=block.getHeight();
 		//this.inPortNum=block.getInPortNum();
 		//this.outPortNum=block.getOutPortNum();
-		//this.inPort=block.isInPort();
-		//this.outPort=block.isOutPort();	
-		this.subSys=block.isSubSys();
 		this.defaultB=block.isDefault();
 		this.supported=block.isSupported();
-		
-		this.constantType=block.isConstant();
-		this.gainType=block.isGain();
-		this.sumType=block.isSum();
-		this.productType=block.isProduct();
-		this.integratorType=block.isIntegrator();
-		this.switchType=block.isSwitch();
-		this.fromType=block.isFrom();
-		this.gotoType=block.isGoto();
-		this.deadZoneType=block.isDeadZone();
-		this.logicType=block.isLogic();
-		this.scopeType=block.isScope();
-		this.trigonometryType=block.isTrigonometry();
 		this.blockMirror=block.isBlockMirror();
 		
 	}
@@ -905,95 +877,180 @@ public class SLBlock {
 		this.hShift = hShift;
 	}
 	
+	 /**
+     * Write the Block on a binary stream (see SXDataCache): the inherited Parameters
+     * are written as if they were its own.
+     * 
+     * @param out
+     * 				The stream.
+     */
+	void write(DataOutputStream out) throws IOException
+	{
+		SXDataCache.writeString(out, this.name);
+		out.writeInt(this.id);
+		SXDataCache.writeString(out, this.type);
+		SXDataCache.writeString(out, this.extendedType);
+		out.writeInt(this.x1Pos);
+		out.writeInt(this.y1Pos);
+		out.writeInt(this.width);
+		out.writeInt(this.height);
+		out.writeInt(this.inPortNum);
+		out.writeInt(this.outPortNum);
+		out.writeInt(this.hShift);
+		out.writeBoolean(this.isDefault());
+		out.writeBoolean(this.isSupported());
+		out.writeBoolean(this.blockMirror);
+		for (int param=0; param<PARAM_NUM; param++)
+			SXDataCache.writeString(out, getParam(param));
+	}
+	
+	 /**
+     * Read a Block written by write.
+     * 
+     * @param in
+     * 				The stream.
+     * @return The Block.
+     */
+	static SLBlock read(DataInputStream in) throws IOException
+	{
+		String name = SXDataCache.readString(in);
+		int id = in.readInt();
+		String type = SXDataCache.readString(in);
+		SLBlock block = new SLBlock(name, type, 0);
+		block.id = id;
+		block.extendedType = SXDataCache.readString(in);
+		block.x1Pos = in.readInt();
+		block.y1Pos = in.readInt();
+		block.width = in.readInt();
+		block.height = in.readInt();
+		block.inPortNum = in.readInt();
+		block.outPortNum = in.readInt();
+		block.hShift = in.readInt();
+		block.defaultB = in.readBoolean();
+		block.supported = in.readBoolean();
+		block.blockMirror = in.readBoolean();
+		for (int param=0; param<PARAM_NUM; param++)
+		{
+			String value = SXDataCache.readString(in);
+			if (!value.isEmpty())
+				block.setParam(param, value);
+		}
+		return block;
+	}
+	
 	// ------------------------>> Private Methods
 
+	// Get a Parameter ("" if not present)
+	private String getParam(int param)
+	{
+		SLBlock inherited = inherited();
+		if (inherited != null && param != INITIAL_CONDITION)
+			return inherited.getParam(param);
+		if (this.params == null || this.params[param] == null)
+			return "";
+		return this.params[param];
+	}
+	
+	// Default Block whose Parameters are inherited (null if *this has its own Parameters)
+	private SLBlock inherited()
+	{
+		if (!this.defaultB || this.defaults == null)
+			return null;
+		return this.defaults.getBlock();
+	}
+	
+	// Set a Parameter (the store is allocated with the first one)
+	private void setParam(int param, String value)
+	{
+		if (this.params == null)
+			this.params = new String[PARAM_NUM];
+		this.params[param] = value;
+	}
+
 	// Compute the number of the In and the Out Ports 
-	private void setPortsNum()
+	private void setPortsNum(String ports)
 	{
+		int extraPortNum = 0;
 		// If Ports is empty: one Input Var and one Output Var
-		if (this.ports.isEmpty())
+		if (ports.isEmpty())
 		{	
 			this.inPortNum = 1;
 			this.outPortNum = 1;
 		}
 		else				
 		{
-			if (!this.ports.equals("[]"))
+			if (!ports.equals("[]"))
 			{
-				if (this.ports.indexOf(",")!=-1)
+				if (ports.indexOf(",")!=-1)
 				{
 					// Get the number of the Input and Output vars
-					this.inPortNum = Integer.parseInt(this.ports.substring(1, this.ports.indexOf(",")));
-					String app=new String(this.ports.substring(this.ports.indexOf(",")+2, this.ports.indexOf("]")));
+					this.inPortNum = Integer.parseInt(ports.substring(1, ports.indexOf(",")));
+					String app=new String(ports.substring(ports.indexOf(",")+2, ports.indexOf("]")));
 					this.outPortNum = Integer.parseInt(app.substring(0,1));
 					int ind=app.indexOf(",");
 					// There are also non-input/non-output ports (maybe Trigger) 
 					if (ind!=-1)
-						this.extraPortNum = Integer.parseInt(app.substring(ind+2, ind+3));
-					this.inPortNum=this.inPortNum+this.extraPortNum;
-						//this.outPortNum = Integer.parseInt(this.ports.substring(this.ports.indexOf(",")+2, this.ports.indexOf("]")));
+						extraPortNum = Integer.parseInt(app.substring(ind+2, ind+3));
+					this.inPortNum=this.inPortNum+extraPortNum;
+						//this.outPortNum = Integer.parseInt(ports.substring(ports.indexOf(",")+2, ports.indexOf("]")));
 				}
 				// If Ports is without value, there are only Input Var
 				else
-					this.inPortNum = Integer.parseInt(this.ports.substring(1, this.ports.indexOf("]")));
+					this.inPortNum = Integer.parseInt(ports.substring(1, ports.indexOf("]")));
 			}
 		}
 	}
 	
 	// Compute Position and Dimension for *this (Derived by Positions basic attribute) 
-	private void setPosAndDim()
-	{
-		String x2Pos=new String();
-		String y2Pos=new String();
-		int x1PosInt;
-		int y1PosInt;
-		int x2PosInt;
-		int y2PosInt;
-		
-		int start=1;
-		// Take the position of the first comma, for LeftUpper X
-		int end=position.indexOf(",");
-		// Get x left-Upper corner
-		String x1Pos = position.substring(start, end);
-		x1PosInt = Integer.parseInt(x1Pos);
-		
-		// After first comma, for LeftUpper Y
-		start=end+2;
-		end = position.indexOf(",", end+1);
-		// Get y left-Upper corner
-		String y1Pos = position.substring(start, end);
-		y1PosInt = Integer.parseInt(y1Pos);
-		
-		// After second comma, for RightBottom X
-		start=end+2;
-		end = position.indexOf(",", end+1);
-		// Get x Right-Bottom corner
-		x2Pos = position.substring(start, end);
-		x2PosInt = Integer.parseInt(x2Pos);
-		
-		// After third comma, for LeftBottom Y
-		start=end+2;
-		end = position.indexOf("]", end+1);
-		// Get y Right-Bottom corner
-		y2Pos = position.substring(start, end);
-		y2PosInt = Integer.parseInt(y2Pos);
+	private void setPosAndDim(String position)
+	{
+		// Left-Upper and Right-Bottom corners: [x1, y1, x2, y2]
+		int[] corners = new int[4];
+		int n = 0;
+		int i = 1;
+		int len = position.length();
+		while (n < 4 && i < len)
+		{
+			char c = position.charAt(i);
+			if (c == ',' || c == ' ')
+			{
+				i++;
+				continue;
+			}
+			boolean negative = (c == '-');
+			if (negative)
+				i++;
+			int start = i;
+			int value = 0;
+			while (i < len && position.charAt(i) >= '0' && position.charAt(i) <= '9')
+				value = 10 * value + (position.charAt(i++) - '0');
+			if (i == start)
+				break;
+			corners[n++] = negative ? -value : value;
+		}
+		if (n < 4)
+			throw new NumberFormatException("Invalid Position: " + position);
+		int x1PosInt = corners[0];
+		int y1PosInt = corners[1];
+		int x2PosInt = corners[2];
+		int y2PosInt = corners[3];
 		
 		if (this.isInPort() || this.isOutPort())
 		{
-			this.x1Pos = "" + (x1PosInt + hShift);
-			this.y1Pos = y1Pos;
-			this.width = "";
-			this.height = "";
+			this.x1Pos = x1PosInt + hShift;
+			this.y1Pos = y1PosInt;
+			this.width = 0;
+			this.height = 0;
 
 		}
 		else
 		{
 			// Compute the Block Center Positions
-			this.x1Pos = "" + ((x1PosInt + (x2PosInt - x1PosInt)/2)+hShift);
-			this.y1Pos = "" + (y1PosInt + (y2PosInt - y1PosInt)/2);
+			this.x1Pos = (x1PosInt + (x2PosInt - x1PosInt)/2)+hShift;
+			this.y1Pos = y1PosInt + (y2PosInt - y1PosInt)/2;
 			// Compute Width and Height
-			this.width = "" + (x2PosInt - x1PosInt);
-			this.height = "" + (y2PosInt - y1PosInt);
+			this.width = x2PosInt - x1PosInt;
+			this.height = y2PosInt - y1PosInt;
 		}
 	}
 }
@@ -5,7 +5,10 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.LocatorImpl;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -34,38 +37,20 @@ public class SLContentHandler implements ContentHandler {
 	
 	boolean mainSys = true;
 	boolean toInsertBlock = true;
+	// If False, stop after the post processing (no SpaceEx Model is written)
+	boolean translate = true;
+	// If True, the SpaceEx Model is written by the streaming backend (see SXWriter)
+	boolean streamOutput = false;
+	// Pool that builds the Base Components (null: they are built on the translating thread)
+	ForkJoinPool pool = null;
+	// Streams of the SpaceEx Model and Configuration (null: the SX_ files of the working directory)
+	OutputStream modelOut = null;
+	OutputStream configOut = null;
 	
-	boolean inBlock = false;	
-	boolean toGetStartTime = false;
-	boolean toGetStopTime = false;
-	boolean toGetMaxStep = false;
-	boolean toGetRelTol = false;
-	boolean toGetAbsTol = false;
+	boolean inBlock = false;
 	boolean toGetDefault = false;
-	boolean toGetPorts = false;
-	boolean toGetPosition = false;
-	boolean toGetBlockMirror = false;
-	boolean toGetValue = false;
-	boolean toGetGain = false;
-	boolean toGetInputs = false;
-	boolean toGetOutputs = false;
-	boolean toGetCriteria = false;
-	boolean toGetThreshold = false;
-	boolean toGetExternalReset = false;
-	boolean toGetInitialCondition = false;
-	boolean toGetLowerValue = false;
-	boolean toGetUpperValue = false;
-	boolean toGetLowerLimit = false;
-	boolean toGetUpperLimit = false;
-	boolean toGetGotoTag = false;
-	boolean toGetOperator = false;
 	
 	boolean inLine = false;
-	boolean toGetSrcBlock = false;
-	boolean toGetSrcPort = false;
-	boolean toGetDstBlock = false;
-	boolean toGetDstPort = false;
-	boolean toGetPoints = false;
 	boolean inSrc = false;
 	boolean inDst = false;
 	boolean lastSrc = false;
@@ -76,6 +61,39 @@ public class SLContentHandler implements ContentHandler {
 	String dstBlock = new String();
 	String dstPort = new String();
 	ArrayList<String> points = new ArrayList<String>();
+	// SID --> Block Name (the Lines of the .slx files refer to the Blocks by SID)
+	HashMap<String, String> sidNames = new HashMap<String, String>();
+	
+	// Elements (outside the Blocks) that can not contribute to the SpaceEx Model: their whole subtree is skipped.
+	// Inside a Block only the Parameters and the SubSystem are of interest (masks, port properties, ... are skipped)
+	static final HashSet<String> skippedElements = new HashSet<String>(Arrays.asList(
+			"Stateflow", "Annotation", "GraphicalInterface", "ConfigManagerSettings", "EditorSettings",
+			"SimulationSettings", "Verification", "ExternalMode", "EngineSettings", "ModelReferenceSettings",
+			"ConcurrentExecutionSettings", "ModelWorkspace", "SystemDefaults", "BlockDefaults",
+			"AnnotationDefaults", "LineDefaults", "MaskDefaults", "MaskParameterDefaults"));
+	// Depth inside a skipped subtree (0 if not skipping)
+	int skipDepth = 0;
+	// Number of the skipped subtrees, and of their elements events (start and end tags)
+	long skippedSubtrees = 0;
+	long skippedEvents = 0;
+	
+	// Context of a <P> tag, used to select the parameters of interest
+	private enum Context { MODEL, DEFAULTS, BLOCK, LINE }
+	
+	// Action to perform on the value of a <P> tag
+	private interface ParamHandler
+	{
+		void handle(String value);
+	}
+	
+	// For each Context, the handlers of the parameters of interest (by <P> Name)
+	private EnumMap<Context, HashMap<String, ParamHandler>> paramsTable = new EnumMap<Context, HashMap<String, ParamHandler>>(Context.class);
+	// Parameters of interest in the current Context
+	private HashMap<String, ParamHandler> currParams;
+	// Handler waiting for the value of the current <P> tag (null if the value is not needed)
+	private ParamHandler toGet = null;
+	// Value of the current <P> tag, accumulated chunk by chunk (reused for all the tags)
+	private StringBuilder value = new StringBuilder();
 	
 		
 	/**
@@ -86,6 +104,9 @@ public class SLContentHandler implements ContentHandler {
 		super();
 		// Default locator
 		locator_ = new LocatorImpl();
+		// Build the dispatch table for the <P> tags
+		initParamsTable();
+		setContext(Context.MODEL);
 	}
 
 	/**
@@ -114,12 +135,7 @@ public class SLContentHandler implements ContentHandler {
 	
 	public void startDocument() throws SAXException 
 	{
-		sxData.printSupported();
-		
-		System.out.println(">> STEP 2. Starting translation from SimuLink to SpaceEx format . . .");
-		System.out.println("  >> 2.1. Begin.");
-		System.out.println("                From SL xml --> Internal Data Structure.");
-		System.out.println();	
+		startTranslation();
 	}
 	
 	/**
@@ -132,36 +148,7 @@ public class SLContentHandler implements ContentHandler {
 	 */
 	public void endDocument() throws SAXException 
 	{
-		System.out.println("  >> 2.1. Done.");
-		System.out.println();
-		System.out.println("  >> 2.2. Begin.");
-		System.out.println("              Postprocessing Internal Data Structure.");
-
-		sxData.postProcess();
-		System.out.println("  >> 2.2. Done.");
-		System.out.println();
-		
-		
-		// Debug Info
-		SXDebug sxDebug = new SXDebug(sxData);
-		sxDebug.printModel(printSystemsInfo, printBlocksInfo, printVarsInfo);
-		
-		System.out.println(">> STEP 3.   Write the corresponding SpaceEx Model on file.");
-		System.out.println("  >> 3.1 Begin.");
-		System.out.println("             From the Internal Data Structure --> .xml SpaceEx Model.");
-	
-		SXBuilder sxBuild = new SXBuilder(sxData);
-		sxBuild.extractSXModel();
-		
-		System.out.println("  >> 3.1 Done.");
-		
-		System.out.println("  >> 3.2 Begin.");
-		System.out.println("             From the Internal Data Structure --> .xml SpaceEx Model Configuration.");
-	
-		sxBuild.extractSXModelConfiguration();
-		
-		System.out.println("  >> 3.2 Done.");
-
+		endTranslation();
 	}
 
 	/**
@@ -216,148 +203,53 @@ public class SLContentHandler implements ContentHandler {
 	public void startElement(String nameSpaceURI, String localName,
 			String rawName, Attributes attributs) throws SAXException 
 	{	
+		// Inside a skipped subtree: just keep track of the depth
+		if (skipDepth > 0)
+		{
+			skipDepth++;
+			skippedEvents++;
+			return;
+		}
+		
 		if (!"".equals(nameSpaceURI)) 
 		{ // espace de nommage particulier
 		   System.out.println(" nameSpaceURI: " + nameSpaceURI);
 	    }
 		
-		// Get SL Model Name and create the Main System 
-		if (localName.equals("Model"))
-		{
-			sxData.setName(attributs.getValue("Name"));
-			sxData.setFileName(attributs.getValue("Name"));
-		}
-		// Tag for the StartTime Simulation
-		else if (localName.equals("P") && attributs.getValue("Name").equals("StartTime"))
-			toGetStartTime = true;
-		// Tag for the StopTime Simulation
-		else if (localName.equals("P") && attributs.getValue("Name").equals("StopTime"))
-			toGetStopTime = true;
-		// Tag for the Simulation Max Step Size
-		else if (localName.equals("P") && attributs.getValue("Name").equals("MaxStep"))
-			toGetMaxStep = true;
-		// Tag for the Simulation Relative Tolerance
-		else if (localName.equals("P") && attributs.getValue("Name").equals("RelTol"))
-			toGetRelTol = true;
-		// Tag for the Simulation Absolute Tolerance
-		else if (localName.equals("P") && attributs.getValue("Name").equals("AbsTol"))
-			toGetAbsTol = true;
-		
-		// Tag for the Blocks Parameter Defaults
-		else if (localName.equals("BlockParameterDefaults"))
-			toGetDefault = true;
-			
-		else if (localName.equals("System"))
-		{
-			if (mainSys)
+		switch (localName)
+		{
+		// Single Parameter: keep its value only if it is of interest
+		case "P":
+			startParam(attributs.getValue("Name"));
+			value.setLength(0);
+			break;
+		case "Model":
+			startModel(attributs.getValue("Name"));
+			break;
+		case "BlockParameterDefaults":
+			startDefaults();
+			break;
+		case "System":
+			startSystem();
+			break;
+		case "Block":
+			startBlock(attributs.getValue("BlockType"), attributs.getValue("Name"), attributs.getValue("SID"));
+			break;
+		case "Line":
+			startLine();
+			break;
+		case "Branch":
+			startBranch();
+			break;
+		default:
+			// Fast-forward past the elements of no interest
+			if (isSkipped(localName))
 			{
-				// Create Main System
-				sys = new SLSystem(sxData.getName(), -1);
-				mainSys = false;
+				skipDepth = 1;
+				skippedSubtrees++;
+				skippedEvents++;
 			}
-			else
-			{
-				sxData.getCurrSys().addBlock(block);
-				// Create SubSystem
-				sys = new SLSystem(block.getName(), sxData.getCurrSysIndex());
-				sys.setBlockMirror(block.isBlockMirror());
-			}
-		
-			sxData.addSys(sys);
 		}
-		
-		// Single Block
-		else if (localName.equals("Block"))
-		{
-
-			inBlock = true;
-			if (toGetDefault)
-				// Default Parameter
-				block = new SLBlock(attributs.getValue("BlockType"), attributs.getValue("BlockType"), sxData.getSupportedBlocks(), hShift);
-			else 
-				// Real Block
-				block = new SLBlock(attributs.getValue("Name").replace(" ", "_"), attributs.getValue("BlockType"), sxData.getSupportedBlocks(), hShift);
-		}
-			
-		else if (localName.equals("P") && (inBlock))
-		{
-			// Tag for the Attribute Ports
-			if (attributs.getValue("Name").equals("Ports"))
-				toGetPorts = true;
-			// Tag for the Attribute Position		
-			else if (attributs.getValue("Name").equals("Position"))
-				toGetPosition = true;
-			// Tag for the Attribute BlockMirror		
-			else if (attributs.getValue("Name").equals("BlockMirror"))
-				toGetBlockMirror = true;
-			// Tag for the Attribute Value
-			else if (attributs.getValue("Name").equals("Value"))
-				toGetValue = true;
-			// Tag for the Attribute Gain
-			else if (attributs.getValue("Name").equals("Gain"))
-				toGetGain = true;
-			// Tag for the Attribute Inputs
-			else if (attributs.getValue("Name").equals("Inputs"))
-				toGetInputs = true;
-			// Tag for the Attribute Outputs
-			else if (attributs.getValue("Name").equals("Outputs"))
-				toGetOutputs = true;
-			// Tag for the Attribute Criteria
-			else if (attributs.getValue("Name").equals("Criteria"))
-				toGetCriteria = true;
-			// Tag for the Attribute Threshold
-			else if (attributs.getValue("Name").equals("Threshold"))
-				toGetThreshold = true;
-			// Tag for the Attribute ExternalReset
-			else if (attributs.getValue("Name").equals("ExternalReset"))
-				toGetExternalReset = true;
-			// Tag for the Integrator Initial Condition
-			else if (attributs.getValue("Name").equals("InitialCondition"))
-				toGetInitialCondition = true;
-			// Tag for the Attribute LowerValue
-			else if (attributs.getValue("Name").equals("LowerValue"))
-				toGetLowerValue = true;
-			// Tag for the Attribute UpperValue
-			else if (attributs.getValue("Name").equals("UpperValue"))
-				toGetUpperValue = true;
-			// Tag for the Attribute LowerLimit (Saturate)
-			else if (attributs.getValue("Name").equals("LowerLimit"))
-				toGetLowerLimit = true;
-			// Tag for the Attribute UpperLimit (Saturate)
-			else if (attributs.getValue("Name").equals("UpperLimit"))
-				toGetUpperLimit = true;
-			// Tag for the Attribute GotoTag
-			else if (attributs.getValue("Name").equals("GotoTag"))
-				toGetGotoTag = true;
-			// Tag for the Attribute Operator (Trig and Logic)
-			else if (attributs.getValue("Name").equals("Operator"))
-				toGetOperator = true;
-		}
-		// Tag for the Connection among blocks
-		else if (localName.equals("Line"))
-			inLine = true;
-	
-		else if (inLine && localName.equals("P"))
-		{
-			// Tag for the Source Block Line
-			if (attributs.getValue("Name").equals("SrcBlock"))
-				toGetSrcBlock = true;
-			// Tag for the Source Port Line
-			else if (attributs.getValue("Name").equals("SrcPort"))
-				toGetSrcPort = true;
-			// Tag for the Destination Block Line
-			else if (attributs.getValue("Name").equals("DstBlock"))
-				toGetDstBlock = true;
-			// Tag for the Destination Port Line
-			else if (attributs.getValue("Name").equals("DstPort"))
-				toGetDstPort = true;
-			// Tag for the Connection Points
-		 	else if (attributs.getValue("Name").equals("Points"))
-				toGetPoints = true;
-		}
-		// Tag for the Connection Branching
-		else if (inLine && localName.equals("Branch"))
-			branchDeep ++;
 	}
 
 	/**
@@ -369,39 +261,36 @@ public class SLContentHandler implements ContentHandler {
 	public void endElement(String nameSpaceURI, String localName, String rawName)
 			throws SAXException 
 	{
-		// Tag for the Block Parameter Defaults
-		if (localName.equals("BlockParameterDefaults"))
-			toGetDefault = false;
-		
-		// End of the Subsystem
-		else if (localName.equals("System"))
-		{
-			// The current system now is the parent
-			sxData.goToParent();
-			toInsertBlock = false;
-		}
-		// End of the Block	
-		else if (localName.equals("Block"))
+		// Inside a skipped subtree: just keep track of the depth
+		if (skipDepth > 0)
 		{
-			if (toGetDefault)
-				// Add the Block with the Default Parameters
-				sxData.addDBlock(block);
-			else if (toInsertBlock)
-				// Add the effective Block
-				sxData.getCurrSys().addBlock(block);
-			
-			toInsertBlock = true;
-			inBlock = false;
+			skipDepth--;
+			skippedEvents++;
+			return;
 		}
-		// End of the Connections among Blocks
-		else if (localName.equals("Line"))
-			inLine = false;
-		// End of a single Branch
-		else if (localName.equals("Branch"))
-		{
-			branchDeep --;
-			// Change the next insertion point
-			nextPoints = branchDeep;
+		
+		switch (localName)
+		{
+		// End of a Parameter: hand off the whole value
+		case "P":
+			if (toGet != null)
+				endParam(value.toString());
+			break;
+		case "BlockParameterDefaults":
+			endDefaults();
+			break;
+		case "System":
+			endSystem();
+			break;
+		case "Block":
+			endBlock();
+			break;
+		case "Line":
+			endLine();
+			break;
+		case "Branch":
+			endBranch();
+			break;
 		}
 	}
 
@@ -419,194 +308,579 @@ public class SLContentHandler implements ContentHandler {
 	 */
 	public void characters(char[] ch, int start, int length) throws SAXException {
 		
-		String chars = new String(ch, start, length);
+		// Only the values of the parameters of interest are kept.
+		// The parser may split a value in several chunks: accumulate them
+		// and process the value at the end of the tag.
+		if (toGet != null)
+			value.append(ch, start, length);
+	}
+	
+	// ------------------------------------>> Front-end independent Interface
+	// Used by the SAX callbacks and by the other front ends (e.g. SLStreamParser).
+	
+	/**
+	 * Begin of the translation: to be called before any other event.
+	 */
+	void startTranslation()
+	{
+		sxData.printSupported();
 		
-		// Get StartTime Simulation
-		if (toGetStartTime)
-		{
-			sxData.setStartTime(chars);
-			toGetStartTime = false;			
-		}
-		// Get StopTime Simulation
-		else if (toGetStopTime)
+		System.out.println(">> STEP 2. Starting translation from SimuLink to SpaceEx format . . .");
+		System.out.println("  >> 2.1. Begin.");
+		System.out.println("                From SL xml --> Internal Data Structure.");
+		System.out.println();	
+	}
+	
+	/**
+	 * End of the translation: post process the Internal Data Structure and
+	 * write the SpaceEx Model (and its Configuration) on file.
+	 */
+	void endTranslation()
+	{
+		System.out.println("  >> 2.1. Done.");
+		System.out.println("                Skipped " + skippedSubtrees + " subtrees of no interest (" + skippedEvents + " element events).");
+		System.out.println();
+		System.out.println("  >> 2.2. Begin.");
+		System.out.println("              Postprocessing Internal Data Structure.");
+
+		sxData.postProcess();
+		System.out.println("  >> 2.2. Done.");
+		System.out.println();
+		
+		if (!translate)
+			return;
+		
+		// Debug Info
+		SXDebug sxDebug = new SXDebug(sxData);
+		sxDebug.printModel(printSystemsInfo, printBlocksInfo, printVarsInfo);
+		
+		writeSXModel(sxData);
+	}
+	
+	/**
+	 * Write the SpaceEx Model (and its Configuration) of an Internal Data Structure on file,
+	 * with the backend, the pool and the streams chosen for this handler. Called at the end
+	 * of the translation, and to write a cached Data Structure (see SXDataCache).
+	 * 
+	 * @param sxData
+	 * 				The post processed Internal Data Structure.
+	 * @throws UncheckedIOException
+	 * 				If the Model or its Configuration can not be written.
+	 */
+	public void writeSXModel(SXData sxData)
+	{
+		System.out.println(">> STEP 3.   Write the corresponding SpaceEx Model on file.");
+		System.out.println("  >> 3.1 Begin.");
+		System.out.println("             From the Internal Data Structure --> .xml SpaceEx Model.");
+	
+		SXBuilder sxBuild = new SXBuilder(sxData, streamOutput);
+		sxBuild.setPool(pool);
+		sxBuild.setOutput(modelOut, configOut);
+		sxBuild.extractSXModel();
+		
+		System.out.println("  >> 3.1 Done.");
+		
+		System.out.println("  >> 3.2 Begin.");
+		System.out.println("             From the Internal Data Structure --> .xml SpaceEx Model Configuration.");
+	
+		sxBuild.extractSXModelConfiguration();
+		
+		System.out.println("  >> 3.2 Done.");
+	}
+	
+	/**
+	 * Begin of the Model: get SL Model Name.
+	 * 
+	 * @param name
+	 * 				Simulink Model Name.
+	 */
+	void startModel(String name)
+	{
+		sxData.setName(name);
+		sxData.setFileName(name);
+	}
+	
+	/**
+	 * Begin of the Blocks Parameter Defaults.
+	 */
+	void startDefaults()
+	{
+		toGetDefault = true;
+	}
+	
+	/**
+	 * End of the Blocks Parameter Defaults.
+	 */
+	void endDefaults()
+	{
+		toGetDefault = false;
+	}
+	
+	/**
+	 * Begin of a (Sub)System: create the Main System or the SubSystem
+	 * of the current Block.
+	 */
+	void startSystem()
+	{
+		inBlock = false;
+		if (mainSys)
 		{
-			sxData.setStopTime(chars);
-			toGetStopTime = false;			
+			// Create Main System
+			sys = new SLSystem(sxData.getName(), -1);
+			mainSys = false;
 		}
-		// Get MaxStep Size
-		if (toGetMaxStep)
+		else
 		{
-			sxData.setMaxStep(chars);
-			toGetMaxStep = false;			
+			sxData.getCurrSys().addBlock(block);
+			// Create SubSystem
+			sys = new SLSystem(block.getName(), sxData.getCurrSysIndex());
+			sys.setBlockMirror(block.isBlockMirror());
 		}
-		// Get Relative Tolerance
-		else if (toGetRelTol)
+	
+		sxData.addSys(sys);
+	}
+	
+	/**
+	 * Begin of the content of a SubSystem parsed apart from the rest of the diagram
+	 * (see SLParallelParser): an empty SubSystem becomes the root of the Data Structure,
+	 * its Name, Parent and BlockMirror are set when it is merged (see SXData.replaceSys).
+	 * 
+	 * @param parent
+	 * 				The Data Structure of the diagram, that shares its Symbol Table and its
+	 * 				Block Parameter Defaults.
+	 */
+	void startSubSystem(SXData parent)
+	{
+		sxData.share(parent);
+		sys = new SLSystem("", 0);
+		sxData.addSys(sys);
+		mainSys = false;
+	}
+	
+	/**
+	 * End of a (Sub)System.
+	 */
+	void endSystem()
+	{
+		// The current system now is the parent
+		sxData.goToParent();
+		toInsertBlock = false;
+	}
+	
+	/**
+	 * Begin of a Single Block (real Block or Block with the Default Parameters).
+	 * 
+	 * @param blockType
+	 * 				Type of the SL Block.
+	 * @param name
+	 * 				Simulink Block Name (not used for the Default Parameters).
+	 * @param sid
+	 * 				Simulink Block Identifier (null if not present).
+	 */
+	void startBlock(String blockType, String name, String sid)
+	{
+		inBlock = true;
+		if (toGetDefault)
 		{
-			sxData.setRelTol(chars);
-			toGetRelTol = false;			
+			// Default Parameter
+			block = new SLBlock(blockType, blockType, hShift);
+			setContext(Context.DEFAULTS);
 		}
-		// Get Relative Tolerance
-		else if (toGetAbsTol)
+		else 
 		{
-			sxData.setAbsTol(chars);
-			toGetAbsTol = false;			
+			// Real Block, that inherits the Default Parameters of its Type
+			block = new SLBlock(blockName(name), blockType, hShift);
+			sxData.applyDefaults(block);
+			setContext(Context.BLOCK);
+			if (sid != null)
+				sidNames.put(sid, block.getName());
 		}
-				
-		// Get Ports
-		else if (toGetPorts)
+	}
+	
+	/**
+	 * End of a Single Block: add it to the current System
+	 * (or to the Default Blocks).
+	 */
+	void endBlock()
+	{
+		if (toGetDefault)
+			// Add the Block with the Default Parameters
+			sxData.addDBlock(block);
+		else if (toInsertBlock)
 		{
-			block.setPorts(chars);
-			toGetPorts = false;			
+			// Add the effective Block
+			sxData.getCurrSys().addBlock(block);
 		}
-
-		// Get Position
-		else if (toGetPosition)
+		
+		toInsertBlock = true;
+		inBlock = false;
+		setContext(Context.MODEL);
+	}
+	
+	/**
+	 * Begin of a Connection among Blocks.
+	 */
+	void startLine()
+	{
+		inLine = true;
+		setContext(Context.LINE);
+	}
+	
+	/**
+	 * End of a Connection among Blocks.
+	 */
+	void endLine()
+	{
+		inLine = false;
+		setContext(Context.MODEL);
+	}
+	
+	/**
+	 * Begin of a Connection Branching.
+	 */
+	void startBranch()
+	{
+		if (inLine)
+			branchDeep ++;
+	}
+	
+	/**
+	 * End of a single Branch.
+	 */
+	void endBranch()
+	{
+		branchDeep --;
+		// Change the next insertion point
+		nextPoints = branchDeep;
+	}
+	
+	/**
+	 * Begin of a Parameter: a single lookup in the table of the current context.
+	 * 
+	 * @param name
+	 * 				Parameter Name, i.e. the attribute Name of the <P> tag.
+	 * @return True, if the value of the Parameter is of interest 
+	 * 				(and then must be passed to endParam).
+	 */
+	boolean startParam(String name)
+	{
+		toGet = currParams.get(name);
+		return toGet != null;
+	}
+	
+	/**
+	 * End of a Parameter: process its value (empty values are ignored).
+	 * 
+	 * @param value
+	 * 				The whole value of the <P> tag.
+	 */
+	void endParam(String value)
+	{
+		if (toGet != null && !value.isEmpty())
+			toGet.handle(value);
+		toGet = null;
+	}
+	
+	/**
+	 * Check whether an element (other than the Simulink elements handled by the
+	 * translation) can not contribute to the SpaceEx Model, and then can be skipped
+	 * with its whole subtree.
+	 * 
+	 * @param localName
+	 * 				Name of the element.
+	 * @return True, if the element and its content can be skipped.
+	 */
+	boolean isSkipped(String localName)
+	{
+		return inBlock || skippedElements.contains(localName);
+	}
+	
+	/**
+	 * Count a subtree skipped by a front end.
+	 * 
+	 * @param events
+	 * 				Number of the element events (start and end tags) of the subtree.
+	 */
+	void addSkipped(long events)
+	{
+		skippedSubtrees++;
+		skippedEvents += events;
+	}
+	
+	/**
+	 * Count the subtrees skipped by the handler of a part of the Diagram parsed apart
+	 * (see SLParallelParser).
+	 * 
+	 * @param part
+	 * 				The handler of the part.
+	 */
+	void addSkipped(SLContentHandler part)
+	{
+		skippedSubtrees += part.skippedSubtrees;
+		skippedEvents += part.skippedEvents;
+	}
+	
+	/**
+	 * Get the number of the subtrees skipped, because they can not contribute to the SpaceEx Model.
+	 * 
+	 * @return The number of the skipped subtrees.
+	 */
+	public long getSkippedSubtrees()
+	{
+		return this.skippedSubtrees;
+	}
+	
+	/**
+	 * Get the number of the element events (start and end tags) skipped.
+	 * 
+	 * @return The number of the skipped events.
+	 */
+	public long getSkippedEvents()
+	{
+		return this.skippedEvents;
+	}
+	
+	/**
+	 * Used to enable or disable the SpaceEx Model generation at the end of the
+	 * parsing (the Internal Data Structure is always post processed).
+	 * 
+	 * @param translate
+	 * 				If False, stop after the post processing.
+	 */
+	public void setTranslate(boolean translate)
+	{
+		this.translate = translate;
+	}
+	
+	/**
+	 * Used to choose the backend that writes the SpaceEx Model: the JDOM Document,
+	 * saved at the end (default), or the streaming writer, that writes each component
+	 * as soon as it is complete (same output, less memory for the large Models).
+	 * 
+	 * @param streamOutput
+	 * 				If True, the Model is written by the streaming writer (SXWriter).
+	 */
+	public void setStreamOutput(boolean streamOutput)
+	{
+		this.streamOutput = streamOutput;
+	}
+	
+	/**
+	 * Used to build the Base Components of the SpaceEx Model on a fork/join pool
+	 * (same output, see SXBuilder.setPool).
+	 * 
+	 * @param pool
+	 * 				The pool that translates the Blocks (null to translate them on the parsing thread).
+	 */
+	public void setPool(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+	
+	/**
+	 * Used to write the SpaceEx Model and its Configuration on streams (i.e. in memory),
+	 * instead of the files SX_name.xml and SX_name.cfg of the working directory.
+	 * 
+	 * @param model
+	 * 				The stream of the SpaceEx Model (.xml), flushed but not closed.
+	 * @param config
+	 * 				The stream of the SpaceEx Model Configuration (.cfg), flushed but not closed.
+	 */
+	public void setOutput(OutputStream model, OutputStream config)
+	{
+		this.modelOut = model;
+		this.configOut = config;
+	}
+	
+	/**
+	 * Get the Data Structure filled by the parsing.
+	 * 
+	 * @return The SXData that contains the Simulink Diagram Informations.
+	 */
+	public SXData getSXData()
+	{
+		return this.sxData;
+	}
+	
+	// ------------------------------------>> Private Methods
+	
+	// Normalized name of a Block (each different name is normalized only once)
+	private String blockName(String rawName)
+	{
+		SymbolTable symbols = sxData.getSymbols();
+		return symbols.getName(symbols.internBlock(rawName));
+	}
+	
+	// Add the Connection (srcBlock+srcPort) --> (dstBlock+dstPort) to the current System.
+	// The Connections from or to an unknown Block (null) or a port without number (e.g. the
+	// trigger and enable ports) are not supported: they are skipped
+	private void addConnection()
+	{
+		if (srcBlock == null || dstBlock == null)
+			return;
+		if (!isPortNumber(srcPort) || !isPortNumber(dstPort))
 		{
-		    block.setPosition(chars);
-			toGetPosition = false;			
+			System.out.println("                Line " + srcBlock + ":" + srcPort + " --> " + dstBlock + ":" + dstPort + " not supported: skipped.");
+			return;
 		}
+		// Add the Mapping (srcBlock+srcPort) --> (dstBlock+dstPort)
+		sxData.getCurrSys().setMap(srcBlock, srcPort, dstBlock, dstPort);
+		// add Points (line connection shape) to the Dst Variable
+		sxData.getCurrSys().addDstPoints(dstBlock, dstPort, points, nextPoints);
+	}
+	
+	// Get the Block of an .slx Line end: "SID#in:2" --> name of the Block SID (null if unknown)
+	private String sidBlock(String value)
+	{
+		int hash = value.indexOf('#');
+		String name = (hash == -1) ? null : sidNames.get(value.substring(0, hash));
+		if (name == null)
+			System.out.println("                Line end " + value + " of no known Block: skipped.");
+		return name;
+	}
+	
+	// Get the Port of an .slx Line end: "SID#in:2" --> "2", "SID#trigger" --> "trigger"
+	private static String sidPort(String value)
+	{
+		int hash = value.indexOf('#');
+		if (hash == -1)
+			return "";
+		String port = value.substring(hash + 1);
+		int colon = port.indexOf(':');
+		return colon == -1 ? port : port.substring(colon + 1);
+	}
+	
+	// Check whether a Port is given by its number (the only ones modeled by Variables)
+	private static boolean isPortNumber(String port)
+	{
+		String number = port.trim();
+		if (number.isEmpty())
+			return false;
+		for (int i=0; i<number.length(); i++)
+			if (!Character.isDigit(number.charAt(i)))
+				return false;
+		return true;
+	}
+	
+	// Select the table of the parameters of interest
+	private void setContext(Context context)
+	{
+		currParams = paramsTable.get(context);
+	}
+	
+	// Fill the dispatch table: <P> Name --> action on the value, for each Context
+	private void initParamsTable()
+	{
+		// Simulation Parameters
+		HashMap<String, ParamHandler> modelParams = new HashMap<String, ParamHandler>();
+		// Get StartTime Simulation
+		modelParams.put("StartTime", value -> sxData.setStartTime(value));
+		// Get StopTime Simulation
+		modelParams.put("StopTime", value -> sxData.setStopTime(value));
+		// Get MaxStep Size
+		modelParams.put("MaxStep", value -> sxData.setMaxStep(value));
+		// Get Relative Tolerance
+		modelParams.put("RelTol", value -> sxData.setRelTol(value));
+		// Get Absolute Tolerance
+		modelParams.put("AbsTol", value -> sxData.setAbsTol(value));
 		
+		// Block Parameters
+		HashMap<String, ParamHandler> blockParams = new HashMap<String, ParamHandler>();
+		// Get Ports
+		blockParams.put("Ports", value -> block.setPorts(value));
+		// Get Position
+		blockParams.put("Position", value -> block.setPosition(value));
 		// Get BlockMirror
-		else if (toGetBlockMirror)
-		{
-			if (chars.equals("on"))
+		blockParams.put("BlockMirror", value -> {
+			if (value.equals("on"))
 			{
 				sxData.setMirrorBlockOn();
 				block.setBlockMirror(true);
 			}
-			toGetBlockMirror = false;			
-		}
-		
+		});
 		// Get Value
-		else if (toGetValue)
-		{
-			block.setValue(chars);
-			toGetValue = false;			
-		}
+		blockParams.put("Value", value -> block.setValue(value));
 		// Get Gain
-		else if (toGetGain)
-		{
-			block.setGain(chars);
-			toGetGain = false;			
-		}
+		blockParams.put("Gain", value -> block.setGain(value));
 		// Get Inputs
-		else if (toGetInputs)
-		{
-			block.setInputs(chars);
-			toGetInputs = false;
-		}
+		blockParams.put("Inputs", value -> block.setInputs(value));
 		// Get Outputs
-		else if (toGetOutputs)
-		{
-			block.setOutputs(chars);
-			toGetOutputs = false;			
-		}
+		blockParams.put("Outputs", value -> block.setOutputs(value));
 		// Get Criteria
-		else if (toGetCriteria)
-		{
-			block.setCriteria(chars);
-			toGetCriteria = false;			
-		}
+		blockParams.put("Criteria", value -> block.setCriteria(value));
 		// Get Threshold
-		else if (toGetThreshold)
-		{
-			block.setThreshold(chars);
-			toGetThreshold = false;			
-		}
+		blockParams.put("Threshold", value -> block.setThreshold(value));
 		// Get ExternalReset
-		else if (toGetExternalReset)
-		{
-			block.setExternalReset(chars);
-			toGetExternalReset = false;			
-		}
+		blockParams.put("ExternalReset", value -> block.setExternalReset(value));
 		// Get the Integrator Initial Cond
-		else if(toGetInitialCondition)
-		{
-			block.setInitialCondition(chars);
-			toGetInitialCondition = false;
-		}
-		// Get LowerValue
-		else if (toGetLowerValue)
-		{
-			block.setLowerValue(chars);
-			toGetLowerValue = false;			
-		}
-		// Get UpperValue
-		else if (toGetUpperValue)
-		{
-			block.setUpperValue(chars);
-			toGetUpperValue = false;			
-		}
-		// Get LowerValue
-		else if (toGetLowerLimit)
-		{
-			block.setLowerLimit(chars);
-			toGetLowerLimit = false;			
-		}
-		// Get UpperLimit
-		else if (toGetUpperLimit)
-		{
-			block.setUpperLimit(chars);
-			toGetUpperLimit = false;			
-		}
+		blockParams.put("InitialCondition", value -> block.setInitialCondition(value));
+		// Get LowerValue (DeadZone)
+		blockParams.put("LowerValue", value -> block.setLowerValue(value));
+		// Get UpperValue (DeadZone)
+		blockParams.put("UpperValue", value -> block.setUpperValue(value));
+		// Get LowerLimit (Saturate)
+		blockParams.put("LowerLimit", value -> block.setLowerLimit(value));
+		// Get UpperLimit (Saturate)
+		blockParams.put("UpperLimit", value -> block.setUpperLimit(value));
 		// Get GotoTag
-		else if (toGetGotoTag)
-		{
-			block.setGotoTag(chars);
-			toGetGotoTag = false;			
-		}
+		blockParams.put("GotoTag", value -> block.setGotoTag(value));
 		// Get Trigonometry and Logic Operator
-		else if (toGetOperator)
-		{
-			block.setOperator(chars);
-			toGetOperator = false;			
-		}
+		blockParams.put("Operator", value -> block.setOperator(value));
+		
+		// Line Parameters
+		HashMap<String, ParamHandler> lineParams = new HashMap<String, ParamHandler>();
 		// Get the Source Block Line
-		else if (toGetSrcBlock)
-		{
-			srcBlock = chars.replace(" ", "_");
-			toGetSrcBlock = false;
-		}
+		lineParams.put("SrcBlock", value -> srcBlock = blockName(value));
 		// Get the Source Port Line
-		else if (toGetSrcPort)
-		{
-			srcPort = chars;
-			toGetSrcPort = false;
+		lineParams.put("SrcPort", value -> {
+			srcPort = value;
 			lastSrc = true;
-		}
+		});
 		// Get the Destination Block Line
-		else if (toGetDstBlock)
-		{
-			dstBlock = chars.replace(" ", "_");
-			toGetDstBlock = false;
+		lineParams.put("DstBlock", value -> {
+			dstBlock = blockName(value);
 			lastSrc = false;
-		}
+		});
 		// Get the Destination Port Line
-		else if (toGetDstPort)
-		{
-			dstPort = chars;
-			// Add the Mapping (srcBlock+srcPort) --> (dstBlock+dstPort)
-			sxData.getCurrSys().setMap(srcBlock, srcPort, dstBlock, dstPort);
-			// add Points (line connection shape) to the Dst Variable
-			sxData.getCurrSys().addDstPoints(dstBlock, dstPort, points, nextPoints);
-			toGetDstPort = false;
-		}
-		else if (toGetPoints)
-		{
+		lineParams.put("DstPort", value -> {
+			dstPort = value;
+			addConnection();
+		});
+		// Get the Source Block and Port Line, in the .slx format "SID#out:Port"
+		lineParams.put("Src", value -> {
+			srcBlock = sidBlock(value);
+			srcPort = sidPort(value);
+			lastSrc = true;
+		});
+		// Get the Destination Block and Port Line, in the .slx format "SID#in:Port"
+		lineParams.put("Dst", value -> {
+			dstBlock = sidBlock(value);
+			dstPort = sidPort(value);
+			lastSrc = false;
+			addConnection();
+		});
+		// Get the Connection Points
+		lineParams.put("Points", value -> {
 			if (lastSrc)
 			{
 				// add Points (line connection shape) to the Src Variable
-				sxData.getCurrSys().addSrcPoints(srcBlock, srcPort, chars); 
+				if (srcBlock != null)
+					sxData.getCurrSys().addSrcPoints(srcBlock, srcPort, value); 
 				lastSrc = false;
 			}
 			else 
 			{
 				// Accumulate Points into an Array
-				points.add(nextPoints, chars);
+				points.add(nextPoints, value);
 				nextPoints++;
 			}
-			toGetPoints = false;
-		}
+		});
+		
+		paramsTable.put(Context.MODEL, modelParams);
+		// Default Blocks share the same parameters of the real Blocks
+		paramsTable.put(Context.DEFAULTS, blockParams);
+		paramsTable.put(Context.BLOCK, blockParams);
+		paramsTable.put(Context.LINE, lineParams);
 	}
 	
 
@@ -0,0 +1,575 @@
+package sl2sx;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *
+ * Class to Parse (huge) Simulink .xml File through a memory mapping.
+ * Alternative front end to the SAX and StAX parsing: it fills the same Data Structure,
+ * through the same SLContentHandler, but it scans the bytes of the file directly.
+ * Only the tags of interest (Model, BlockParameterDefaults, System, Block, Line, Branch, P)
+ * are matched, and only the values that are kept are decoded to Strings.
+ * The file must be in an ASCII compatible encoding (e.g. UTF-8, as exported by Simulink).
+ */
+public class SLMappedParser {
+
+	// Tags of interest
+	private static final int OTHER = 0;
+	private static final int P = 1;
+	private static final int MODEL = 2;
+	private static final int DEFAULTS = 3;
+	private static final int SYSTEM = 4;
+	private static final int BLOCK = 5;
+	private static final int LINE = 6;
+	private static final int BRANCH = 7;
+	private static final byte[][] TAGS = {
+		null,
+		ascii("P"),
+		ascii("Model"),
+		ascii("BlockParameterDefaults"),
+		ascii("System"),
+		ascii("Block"),
+		ascii("Line"),
+		ascii("Branch")
+	};
+	// Names of the elements of no interest (see SLContentHandler.skippedElements)
+	private static final byte[][] SKIPPED = skippedNames();
+
+	// Handler that fills the Data Structure
+	private SLContentHandler handler;
+	// Content of the file, and current position
+	private ByteBuffer buf;
+	private int len;
+	private int pos;
+	// Second view on the content, used for the bulk copies of the values
+	private ByteBuffer view;
+	// Encoding of the file
+	private Charset charset = StandardCharsets.UTF_8;
+	// True if the innermost open tag between <Block> and <System> is a <Block>
+	private boolean inBlock = false;
+	// End of the current opening tag, and True if it is an empty element (<Tag/>)
+	private int tagEnd;
+	private boolean emptyTag;
+	// Buffers reused for the values
+	private byte[] bytes = new byte[256];
+	private StringBuilder value = new StringBuilder();
+
+	 /**
+     * Default constructor.
+     *
+     * @param handler
+     * 				The Handler that receives the parsed Simulink elements.
+     */
+	public SLMappedParser(SLContentHandler handler)
+	{
+		this.handler = handler;
+	}
+
+	 /**
+     * Parse a Simulink .xml File, mapped in memory.
+     *
+     * @param fileName
+     * 				Path of the Simulink .xml File.
+     */
+	public void parse(String fileName) throws IOException
+	{
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try
+		{
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(fileName + ": files larger than 2 GB can not be mapped, use the SAX or StAX front end");
+			MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			parse(content);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	 /**
+     * Parse the content of a Simulink .xml File.
+     *
+     * @param content
+     * 				The bytes of the file (from the position 0 to the limit).
+     */
+	public void parse(ByteBuffer content) throws IOException
+	{
+		this.buf = content;
+		this.view = content.duplicate();
+		this.len = content.limit();
+		this.pos = 0;
+		this.charset = encodingOf();
+
+		handler.startTranslation();
+		parseElements();
+		handler.endTranslation();
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Process all the tags of the content
+	private void parseElements() throws IOException
+	{
+		while (true)
+		{
+			// Next tag
+			while (pos < len && buf.get(pos) != '<')
+				pos++;
+			if (pos >= len)
+				return;
+			pos++;
+			byte c = at(pos);
+			if (c == '/')
+			{
+				int tag = tagOf(pos + 1);
+				pos = indexOf('>', pos) + 1;
+				endElement(tag);
+			}
+			else if (c == '!' || c == '?')
+				skipMarkup();
+			else
+				startElement(tagOf(pos));
+		}
+	}
+
+	// Handle an opening tag (pos on the tag name). On return, pos is after the
+	// opening tag or, if the element was consumed, after its closing tag
+	private void startElement(int tag) throws IOException
+	{
+		int nameStart = pos;
+		tagEnd = endOfTag(pos);
+		emptyTag = (buf.get(tagEnd - 2) == '/');
+
+		switch (tag)
+		{
+		// Single Parameter: decode the value only if it is of interest
+		case P:
+			if (handler.startParam(attribute(nameStart, "Name")))
+			{
+				pos = tagEnd;
+				handler.endParam(emptyTag ? "" : readText());
+			}
+			else
+				skipElement();
+			return;
+		case MODEL:
+			handler.startModel(attribute(nameStart, "Name"));
+			break;
+		case DEFAULTS:
+			handler.startDefaults();
+			break;
+		case SYSTEM:
+			inBlock = false;
+			handler.startSystem();
+			break;
+		case BLOCK:
+			inBlock = true;
+			handler.startBlock(attribute(nameStart, "BlockType"), attribute(nameStart, "Name"), attribute(nameStart, "SID"));
+			break;
+		case LINE:
+			handler.startLine();
+			break;
+		case BRANCH:
+			handler.startBranch();
+			break;
+		default:
+			// Fast-forward past the elements of no interest
+			if (inBlock || isSkipped(nameStart))
+			{
+				handler.addSkipped(skipElement());
+				return;
+			}
+		}
+		pos = tagEnd;
+		if (emptyTag)
+			endElement(tag);
+	}
+
+	// Handle a closing tag
+	private void endElement(int tag)
+	{
+		switch (tag)
+		{
+		case DEFAULTS:
+			handler.endDefaults();
+			break;
+		case SYSTEM:
+			handler.endSystem();
+			break;
+		case BLOCK:
+			inBlock = false;
+			handler.endBlock();
+			break;
+		case LINE:
+			handler.endLine();
+			break;
+		case BRANCH:
+			handler.endBranch();
+			break;
+		}
+	}
+
+	// Read the text of the current element (pos after the opening tag), up to its closing tag
+	private String readText() throws IOException
+	{
+		value.setLength(0);
+		while (true)
+		{
+			int start = pos;
+			while (pos < len && buf.get(pos) != '<')
+				pos++;
+			if (pos >= len)
+				throw error("unexpected end of file");
+			appendText(start, pos);
+			pos++;
+			byte c = at(pos);
+			if (c == '/')
+			{
+				// Closing tag of the element
+				pos = indexOf('>', pos) + 1;
+				return value.toString();
+			}
+			if (c == '!' && startsWith(pos, "![CDATA["))
+			{
+				int end = indexOf("]]>", pos);
+				append(pos + 8, end);
+				pos = end + 3;
+			}
+			else if (c == '!' || c == '?')
+				skipMarkup();
+			else
+			{
+				// Nested element: not part of the value
+				tagEnd = endOfTag(pos);
+				emptyTag = (buf.get(tagEnd - 2) == '/');
+				skipElement();
+			}
+		}
+	}
+
+	// Skip the current element (pos on its name), up to its closing tag.
+	// Return the number of the element events (start and end tags) skipped
+	private long skipElement() throws IOException
+	{
+		pos = tagEnd;
+		if (emptyTag)
+			return 2;
+		int depth = 1;
+		long events = 2;
+		while (depth > 0)
+		{
+			while (pos < len && buf.get(pos) != '<')
+				pos++;
+			if (pos >= len)
+				throw error("unexpected end of file");
+			pos++;
+			byte c = at(pos);
+			if (c == '/')
+			{
+				depth--;
+				pos = indexOf('>', pos) + 1;
+			}
+			else if (c == '!' || c == '?')
+				skipMarkup();
+			else
+			{
+				pos = endOfTag(pos);
+				if (buf.get(pos - 2) != '/')
+					depth++;
+				events += 2;
+			}
+		}
+		return events;
+	}
+
+	// Check whether the element whose name starts at p is one of the elements of no interest
+	private boolean isSkipped(int p)
+	{
+		for (byte[] name : SKIPPED)
+			if (p + name.length < len && matches(p, name) && !isNameChar(buf.get(p + name.length)))
+				return true;
+		return false;
+	}
+
+	// Skip comments, CDATA sections, DOCTYPE and processing instructions (pos after '<')
+	private void skipMarkup() throws IOException
+	{
+		if (startsWith(pos, "!--"))
+			pos = indexOf("-->", pos) + 3;
+		else if (startsWith(pos, "![CDATA["))
+			pos = indexOf("]]>", pos) + 3;
+		else if (buf.get(pos) == '?')
+			pos = indexOf("?>", pos) + 2;
+		else
+			pos = indexOf('>', pos) + 1;
+	}
+
+	// Identify the tag whose name starts at p
+	private int tagOf(int p)
+	{
+		for (int tag = P; tag < TAGS.length; tag++)
+		{
+			byte[] name = TAGS[tag];
+			if (p + name.length < len && matches(p, name) && !isNameChar(buf.get(p + name.length)))
+				return tag;
+		}
+		return OTHER;
+	}
+
+	// Get the (decoded) value of an attribute of the opening tag whose name starts at p (null if absent)
+	private String attribute(int p, String name) throws IOException
+	{
+		// Skip the tag name
+		while (p < tagEnd && isNameChar(buf.get(p)))
+			p++;
+		while (p < tagEnd)
+		{
+			byte c = buf.get(p);
+			if (c == '>' || c == '/' || isBlank(c))
+			{
+				p++;
+				continue;
+			}
+			int attrStart = p;
+			while (p < tagEnd && isNameChar(buf.get(p)))
+				p++;
+			int attrEnd = p;
+			while (p < tagEnd && buf.get(p) != '"' && buf.get(p) != '\'')
+				p++;
+			if (p >= tagEnd)
+				throw error("malformed attribute");
+			byte quote = buf.get(p);
+			int valueStart = p + 1;
+			int valueEnd = valueStart;
+			while (valueEnd < tagEnd && buf.get(valueEnd) != quote)
+				valueEnd++;
+			if (attrEnd - attrStart == name.length() && startsWith(attrStart, name))
+			{
+				value.setLength(0);
+				appendText(valueStart, valueEnd);
+				// Attribute values normalization: blanks become spaces
+				for (int i=0; i<value.length(); i++)
+					if (value.charAt(i) == '\n' || value.charAt(i) == '\r' || value.charAt(i) == '\t')
+						value.setCharAt(i, ' ');
+				return value.toString();
+			}
+			p = valueEnd + 1;
+		}
+		return null;
+	}
+
+	// Append the text between start and end to value, with the references and the line ends decoded
+	private void appendText(int start, int end) throws IOException
+	{
+		int from = start;
+		for (int i=start; i<end; i++)
+		{
+			byte c = buf.get(i);
+			if (c == '&')
+			{
+				append(from, i);
+				int semicolon = indexOf(';', i);
+				if (semicolon >= end)
+					throw error("malformed reference");
+				appendReference(i + 1, semicolon);
+				from = semicolon + 1;
+				i = semicolon;
+			}
+			else if (c == '\r')
+			{
+				// Line ends are normalized to '\n'
+				append(from, i);
+				value.append('\n');
+				if (i + 1 < end && buf.get(i + 1) == '\n')
+					i++;
+				from = i + 1;
+			}
+		}
+		append(from, end);
+	}
+
+	// Append a character or entity reference (the name between '&' and ';')
+	private void appendReference(int start, int end) throws IOException
+	{
+		if (startsWith(start, "#x"))
+			value.appendCodePoint(Integer.parseInt(decode(start + 2, end), 16));
+		else if (startsWith(start, "#"))
+			value.appendCodePoint(Integer.parseInt(decode(start + 1, end)));
+		else
+		{
+			String entity = decode(start, end);
+			if (entity.equals("lt"))
+				value.append('<');
+			else if (entity.equals("gt"))
+				value.append('>');
+			else if (entity.equals("amp"))
+				value.append('&');
+			else if (entity.equals("quot"))
+				value.append('"');
+			else if (entity.equals("apos"))
+				value.append('\'');
+			else
+				throw error("unknown entity &" + entity + ";");
+		}
+	}
+
+	// Append the decoded bytes between start and end to value
+	private void append(int start, int end)
+	{
+		if (end > start)
+			value.append(decode(start, end));
+	}
+
+	// Decode the bytes between start and end
+	private String decode(int start, int end)
+	{
+		int n = end - start;
+		// Plain ASCII: no decoder needed
+		boolean ascii = true;
+		for (int i=start; i<end && ascii; i++)
+			ascii = (buf.get(i) >= 0);
+		if (n > bytes.length)
+			bytes = new byte[Math.max(n, 2 * bytes.length)];
+		view.position(start);
+		view.get(bytes, 0, n);
+		return new String(bytes, 0, n, ascii ? StandardCharsets.ISO_8859_1 : charset);
+	}
+
+	// Position after the end of the opening tag that starts at p (the attribute values may contain '>')
+	private int endOfTag(int p) throws IOException
+	{
+		byte quote = 0;
+		while (p < len)
+		{
+			byte c = buf.get(p++);
+			if (quote != 0)
+			{
+				if (c == quote)
+					quote = 0;
+			}
+			else if (c == '"' || c == '\'')
+				quote = c;
+			else if (c == '>')
+				return p;
+		}
+		throw error("unexpected end of file");
+	}
+
+	// Position of a byte from p
+	private int indexOf(char c, int p) throws IOException
+	{
+		while (p < len && buf.get(p) != c)
+			p++;
+		if (p >= len)
+			throw error("unexpected end of file");
+		return p;
+	}
+
+	// Position of an (ASCII) string from p
+	private int indexOf(String s, int p) throws IOException
+	{
+		byte first = (byte) s.charAt(0);
+		for (; p < len; p++)
+			if (buf.get(p) == first && startsWith(p, s))
+				return p;
+		throw error("unexpected end of file");
+	}
+
+	// Check whether the bytes at p start with the given (ASCII) string
+	private boolean startsWith(int p, String s)
+	{
+		if (p + s.length() > len)
+			return false;
+		for (int i=0; i<s.length(); i++)
+			if (buf.get(p + i) != s.charAt(i))
+				return false;
+		return true;
+	}
+
+	// Check whether the bytes at p are the given ones
+	private boolean matches(int p, byte[] s)
+	{
+		for (int i=0; i<s.length; i++)
+			if (buf.get(p + i) != s[i])
+				return false;
+		return true;
+	}
+
+	// Byte at p (0 at the end of the content)
+	private byte at(int p)
+	{
+		return (p < len) ? buf.get(p) : 0;
+	}
+
+	// Get the encoding declared in the XML declaration (UTF-8 if not declared)
+	private Charset encodingOf() throws IOException
+	{
+		// Byte Order Mark
+		if (len > 2 && buf.get(0) == (byte) 0xEF && buf.get(1) == (byte) 0xBB && buf.get(2) == (byte) 0xBF)
+			pos = 3;
+		if (len > 1 && (buf.get(0) == 0 || buf.get(1) == 0 || buf.get(0) == (byte) 0xFE || buf.get(0) == (byte) 0xFF))
+			throw error("UTF-16 and UTF-32 files are not supported, use the SAX or StAX front end");
+		if (!startsWith(pos, "<?xml"))
+			return StandardCharsets.UTF_8;
+		int end = indexOf("?>", pos);
+		String declaration = decode(pos, end);
+		int i = declaration.indexOf("encoding");
+		if (i == -1)
+			return StandardCharsets.UTF_8;
+		int start = declaration.indexOf('"', i);
+		if (start == -1)
+			start = declaration.indexOf('\'', i);
+		int close = (start == -1) ? -1 : declaration.indexOf(declaration.charAt(start), start + 1);
+		if (close == -1)
+			return StandardCharsets.UTF_8;
+		String name = declaration.substring(start + 1, close);
+		if (name.toUpperCase().startsWith("UTF-16") || name.toUpperCase().startsWith("UTF-32"))
+			throw error(name + " files are not supported, use the SAX or StAX front end");
+		try
+		{
+			return Charset.forName(name);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw error("unknown encoding " + name);
+		}
+	}
+
+	// Error at the current position
+	private IOException error(String message)
+	{
+		return new IOException("Malformed Simulink .xml file at byte " + pos + ": " + message);
+	}
+
+	private static boolean isBlank(byte c)
+	{
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+	private static boolean isNameChar(byte c)
+	{
+		return c != '>' && c != '/' && c != '=' && !isBlank(c);
+	}
+
+	private static byte[][] skippedNames()
+	{
+		byte[][] names = new byte[SLContentHandler.skippedElements.size()][];
+		int i = 0;
+		for (String name : SLContentHandler.skippedElements)
+			names[i++] = ascii(name);
+		return names;
+	}
+
+	private static byte[] ascii(String s)
+	{
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+}
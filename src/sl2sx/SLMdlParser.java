@@ -0,0 +1,395 @@
+package sl2sx;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ *
+ * Class to Parse Simulink .mdl File (classic text format).
+ * Front end that fills the same Data Structure as the .xml parsing, through the
+ * same SLContentHandler: a section "Name {...}" corresponds to the tag <Name>,
+ * a line "Key Value" corresponds to the tag <P Name="Key">Value</P>.
+ */
+public class SLMdlParser {
+
+	// Handler that fills the Data Structure
+	private SLContentHandler handler;
+	// Content of the file, and current position
+	private char[] buf;
+	private int len;
+	private int pos;
+
+	// Parameters of the current Block, kept until the Block Type and Name are known
+	private ArrayList<String> blockKeys = new ArrayList<String>();
+	private ArrayList<String> blockValues = new ArrayList<String>();
+	// Value of the current string parameter (reused for all the parameters)
+	private StringBuilder value = new StringBuilder();
+
+	 /**
+     * Default constructor.
+     *
+     * @param handler
+     * 				The Handler that receives the parsed Simulink elements.
+     */
+	public SLMdlParser(SLContentHandler handler)
+	{
+		this.handler = handler;
+	}
+
+	 /**
+     * Parse a Simulink .mdl File.
+     *
+     * @param fileName
+     * 				Path of the Simulink .mdl File.
+     */
+	public void parse(String fileName) throws IOException
+	{
+		byte[] bytes = Files.readAllBytes(new File(fileName).toPath());
+		CharBuffer chars = encodingOf(bytes).decode(ByteBuffer.wrap(bytes));
+		parse(chars.array(), chars.limit());
+	}
+
+	 /**
+     * Parse the content of a Simulink .mdl File.
+     *
+     * @param content
+     * 				The characters of the file.
+     * @param length
+     * 				The number of characters to parse.
+     */
+	public void parse(char[] content, int length) throws IOException
+	{
+		this.buf = content;
+		this.len = length;
+		this.pos = 0;
+
+		handler.startTranslation();
+		parseSection("", false);
+		handler.endTranslation();
+	}
+
+	 /**
+     * Check whether a file is a Simulink .mdl File (by extension).
+     *
+     * @param fileName
+     * 				Path of the Simulink File.
+     * @return True, if the file must be read with SLMdlParser.
+     */
+	public static boolean isMdl(String fileName)
+	{
+		return fileName.toLowerCase().endsWith(".mdl");
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Parse the content of a section, up to its closing brace (or to the end of the file)
+	private void parseSection(String section, boolean inBlock) throws IOException
+	{
+		while (skipBlanks())
+		{
+			if (buf[pos] == '}')
+			{
+				pos++;
+				return;
+			}
+			String key = readKey();
+			// Embedded packages (binary parts of the recent .mdl files): nothing more to parse
+			if (key.startsWith("__MWOPC_PACKAGE_BEGIN__"))
+			{
+				pos = len;
+				return;
+			}
+			skipSpaces();
+			if (pos < len && buf[pos] == '{')
+			{
+				pos++;
+				openSection(key, inBlock);
+			}
+			// Model Name
+			else if ((section.equals("Model") || section.equals("Library")) && key.equals("Name"))
+				handler.startModel(readValue());
+			// Single Parameter: read the value only if it is of interest
+			else if (handler.startParam(key))
+				handler.endParam(readValue());
+			else
+				skipValue();
+		}
+	}
+
+	// Handle a new section
+	private void openSection(String section, boolean inBlock) throws IOException
+	{
+		switch (section)
+		{
+		case "BlockParameterDefaults":
+			handler.startDefaults();
+			parseSection(section, false);
+			handler.endDefaults();
+			break;
+		case "System":
+			handler.startSystem();
+			parseSection(section, false);
+			handler.endSystem();
+			break;
+		case "Block":
+			parseBlock();
+			break;
+		case "Line":
+			handler.startLine();
+			parseSection(section, false);
+			handler.endLine();
+			break;
+		case "Branch":
+			handler.startBranch();
+			parseSection(section, false);
+			handler.endBranch();
+			break;
+		default:
+			// Inside a Block only the Parameters and the SubSystem are of interest
+			// (masks, port properties, ... are skipped), as the sections that can not
+			// contribute to the SpaceEx Model (Stateflow, Annotation, ...)
+			if (inBlock || handler.isSkipped(section))
+				handler.addSkipped(skipSection());
+			else
+				parseSection(section, false);
+		}
+	}
+
+	// Parse a Block section: Type, Name and SID come as parameters, so the
+	// parameters are kept until the first sub-section (or the end of the Block)
+	private void parseBlock() throws IOException
+	{
+		String blockType = null;
+		String name = null;
+		String sid = null;
+		String subSection = null;
+		blockKeys.clear();
+		blockValues.clear();
+
+		while (skipBlanks())
+		{
+			if (buf[pos] == '}')
+				break;
+			String key = readKey();
+			skipSpaces();
+			if (pos < len && buf[pos] == '{')
+			{
+				pos++;
+				subSection = key;
+				break;
+			}
+			if (key.equals("BlockType"))
+				blockType = readValue();
+			else if (key.equals("Name"))
+				name = readValue();
+			else if (key.equals("SID"))
+				sid = readValue();
+			else
+			{
+				blockKeys.add(key);
+				blockValues.add(readValue());
+			}
+		}
+
+		handler.startBlock(blockType, name, sid);
+		for (int i=0; i<blockKeys.size(); i++)
+			if (handler.startParam(blockKeys.get(i)))
+				handler.endParam(blockValues.get(i));
+
+		if (subSection != null)
+		{
+			// First sub-section, then the rest of the Block
+			openSection(subSection, true);
+			parseSection("Block", true);
+		}
+		else if (pos < len)
+			// Closing brace of the Block
+			pos++;
+		handler.endBlock();
+	}
+
+	// Skip a whole section, up to its closing brace: return the number of the events
+	// (openings and closings of the sections, as the start and end tags of the .xml files)
+	private long skipSection()
+	{
+		int depth = 1;
+		long events = 1;
+		while (pos < len && depth > 0)
+		{
+			char c = buf[pos++];
+			if (c == '"')
+				skipString();
+			else if (c == '{')
+			{
+				depth++;
+				events++;
+			}
+			else if (c == '}')
+			{
+				depth--;
+				events++;
+			}
+		}
+		return events;
+	}
+
+	// Read a key (or a section name): up to the first blank or brace
+	private String readKey()
+	{
+		int start = pos;
+		while (pos < len && !Character.isWhitespace(buf[pos]) && buf[pos] != '{')
+			pos++;
+		return new String(buf, start, pos - start);
+	}
+
+	// Read the value of a parameter: a (multi-line) string, an array, or a single token
+	private String readValue()
+	{
+		skipSpaces();
+		if (pos >= len)
+			return "";
+		if (buf[pos] == '"')
+		{
+			value.setLength(0);
+			// Adjacent strings (on the following lines) are concatenated
+			do
+			{
+				pos++;
+				readString();
+			} while (nextIsString());
+			return value.toString();
+		}
+		int start = pos;
+		if (buf[pos] == '[')
+			// Arrays may be split on several lines
+			while (pos < len && buf[pos] != ']')
+				pos++;
+		while (pos < len && buf[pos] != '\n' && buf[pos] != '\r')
+			pos++;
+		int end = pos;
+		while (end > start && Character.isWhitespace(buf[end - 1]))
+			end--;
+		return new String(buf, start, end - start);
+	}
+
+	// Skip the value of a parameter, without decoding it
+	private void skipValue()
+	{
+		if (pos < len && buf[pos] == '"')
+		{
+			do
+			{
+				pos++;
+				skipString();
+			} while (nextIsString());
+			return;
+		}
+		if (pos < len && buf[pos] == '[')
+			while (pos < len && buf[pos] != ']')
+				pos++;
+		while (pos < len && buf[pos] != '\n' && buf[pos] != '\r')
+			pos++;
+	}
+
+	// Read a string (after the opening quote) and append it to value, with the escapes decoded
+	private void readString()
+	{
+		while (pos < len)
+		{
+			char c = buf[pos++];
+			if (c == '"')
+				return;
+			if (c == '\\' && pos < len)
+			{
+				c = buf[pos++];
+				if (c == 'n')
+					c = '\n';
+				else if (c == 't')
+					c = '\t';
+				else if (c == 'r')
+					c = '\r';
+			}
+			value.append(c);
+		}
+	}
+
+	// Skip a string (after the opening quote)
+	private void skipString()
+	{
+		while (pos < len)
+		{
+			char c = buf[pos++];
+			if (c == '"')
+				return;
+			if (c == '\\')
+				pos++;
+		}
+	}
+
+	// Check whether the next non-blank character starts a string (the continuation of the value)
+	private boolean nextIsString()
+	{
+		int next = pos;
+		while (next < len && Character.isWhitespace(buf[next]))
+			next++;
+		if (next < len && buf[next] == '"')
+		{
+			pos = next;
+			return true;
+		}
+		return false;
+	}
+
+	// Skip blanks and comments. Return False at the end of the file
+	private boolean skipBlanks()
+	{
+		while (pos < len)
+		{
+			char c = buf[pos];
+			if (c == '#')
+				while (pos < len && buf[pos] != '\n')
+					pos++;
+			else if (Character.isWhitespace(c))
+				pos++;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	// Skip the blanks on the current line
+	private void skipSpaces()
+	{
+		while (pos < len && (buf[pos] == ' ' || buf[pos] == '\t'))
+			pos++;
+	}
+
+	// Get the encoding declared by SavedCharacterEncoding (at the beginning of the file)
+	private static Charset encodingOf(byte[] bytes)
+	{
+		String head = new String(bytes, 0, Math.min(bytes.length, 8192), StandardCharsets.ISO_8859_1);
+		int i = head.indexOf("SavedCharacterEncoding");
+		if (i != -1)
+		{
+			int start = head.indexOf('"', i);
+			int end = (start == -1) ? -1 : head.indexOf('"', start + 1);
+			if (end != -1)
+			{
+				try
+				{
+					return Charset.forName(head.substring(start + 1, end));
+				}
+				catch (IllegalArgumentException e)
+				{
+					// Unknown encoding: use the default one
+				}
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+}
@@ -0,0 +1,403 @@
+package sl2sx;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ *
+ * Class to Parse Simulink .xml File in parallel.
+ * A fast pre-scan of the bytes records the ranges of the (Sub)System bodies: the
+ * large ones are cut out of their parent and parsed concurrently (fork/join), each
+ * one into its own Data Structure. The parts are then merged in the document order,
+ * so that the (Sub)Systems have the same indexes as with a sequential parsing.
+ */
+public class SLParallelParser {
+
+	// Minimum size (bytes) of a SubSystem body to be parsed apart
+	public static final int MIN_PART_SIZE = 64 * 1024;
+
+	// Tags used to wrap the content of a SubSystem parsed apart (it may have several top elements)
+	private static final byte[] PART_BEGIN = "<SubSystemContent>".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PART_END = "</SubSystemContent>".getBytes(StandardCharsets.US_ASCII);
+
+	// Handler that fills the Data Structure of the whole diagram
+	private SLContentHandler handler;
+	// Pool that parses the SubSystems
+	private ForkJoinPool pool;
+	// Minimum size of a SubSystem body to be parsed apart
+	private int minPartSize = MIN_PART_SIZE;
+	// Content of the file and its declared encoding (null if not declared)
+	private byte[] buf;
+	private String encoding;
+
+	 /**
+     * Default constructor: the SubSystems are parsed on the common fork/join pool.
+     *
+     * @param handler
+     * 				The Handler that receives the parsed Simulink elements.
+     */
+	public SLParallelParser(SLContentHandler handler)
+	{
+		this(handler, ForkJoinPool.commonPool());
+	}
+
+	 /**
+     * Constructor with a specific pool.
+     *
+     * @param handler
+     * 				The Handler that receives the parsed Simulink elements.
+     * @param pool
+     * 				The fork/join pool that parses the SubSystems.
+     */
+	public SLParallelParser(SLContentHandler handler, ForkJoinPool pool)
+	{
+		this.handler = handler;
+		this.pool = pool;
+	}
+
+	 /**
+     * Set the minimum size of a SubSystem to be parsed apart (the smaller ones
+     * are parsed together with their parent).
+     *
+     * @param minPartSize
+     * 				Minimum size (bytes) of the SubSystem body.
+     */
+	public void setMinPartSize(int minPartSize)
+	{
+		this.minPartSize = minPartSize;
+	}
+
+	 /**
+     * Parse a Simulink .xml File.
+     *
+     * @param fileName
+     * 				Path of the Simulink .xml File.
+     */
+	public void parse(String fileName) throws XMLStreamException, IOException
+	{
+		parse(Files.readAllBytes(new File(fileName).toPath()));
+	}
+
+	 /**
+     * Parse the content of a Simulink .xml File.
+     *
+     * @param content
+     * 				The bytes of the file.
+     */
+	public void parse(byte[] content) throws XMLStreamException
+	{
+		this.buf = content;
+		this.encoding = encodingOf(content);
+
+		// Phase 1: ranges of the SubSystems to parse apart
+		Part main = scan();
+
+		// Phase 2: the SubSystems on the pool, the rest of the diagram on this thread
+		handler.startTranslation();
+		for (Part part : main.parts)
+			pool.execute(part);
+		new SLStreamParser(handler).parseElements(main.content(), null);
+		try
+		{
+			main.merge(handler.getSXData(), handler);
+		}
+		catch (PartException e)
+		{
+			throw (XMLStreamException) e.getCause();
+		}
+		handler.endTranslation();
+	}
+
+	 /**
+     * Count the SubSystems of a file that would be parsed apart (no parsing is done).
+     *
+     * @param fileName
+     * 				Path of the Simulink .xml File.
+     * @return The number of the SubSystems that would be parsed apart.
+     */
+	public int countParts(String fileName) throws XMLStreamException, IOException
+	{
+		this.buf = Files.readAllBytes(new File(fileName).toPath());
+		Part main = scan();
+		return main.count() - 1;
+	}
+
+	// ----------------------------->> Private Classes
+
+	// A part of the diagram: the body of a (Sub)System, without the bodies of the SubSystems parsed apart
+	private class Part extends RecursiveTask<SXData>
+	{
+		private static final long serialVersionUID = 1L;
+
+		// Body of the (Sub)System
+		int start;
+		int end;
+		// Index of the (empty) SubSystem that this part replaces in the parent part
+		int index;
+		// Number of the (Sub)Systems of this part met during the scan
+		int systems;
+		// SubSystems parsed apart, in document order
+		ArrayList<Part> parts = new ArrayList<Part>();
+		// Handler of this part (its counters of the skipped subtrees include the SubSystems parsed apart)
+		SLContentHandler partHandler;
+
+		Part(int start, int end, int index)
+		{
+			this.start = start;
+			this.end = end;
+			this.index = index;
+		}
+
+		// Parse the SubSystem content into its own Data Structure
+		protected SXData compute()
+		{
+			for (Part part : parts)
+				part.fork();
+
+			partHandler = new SLContentHandler();
+			partHandler.startSubSystem(handler.getSXData());
+			try
+			{
+				new SLStreamParser(partHandler).parseElements(content(), encoding);
+			}
+			catch (XMLStreamException e)
+			{
+				throw new PartException(e);
+			}
+			SXData sxData = partHandler.getSXData();
+			merge(sxData, partHandler);
+			return sxData;
+		}
+
+		// Content of the part: the bytes of the body, with the SubSystems parsed apart left empty
+		InputStream content()
+		{
+			ArrayList<InputStream> pieces = new ArrayList<InputStream>();
+			boolean wrap = (index >= 0);
+			if (wrap)
+				pieces.add(new ByteArrayInputStream(PART_BEGIN));
+			int from = start;
+			for (Part part : parts)
+			{
+				pieces.add(new ByteArrayInputStream(buf, from, part.start - from));
+				from = part.end;
+			}
+			pieces.add(new ByteArrayInputStream(buf, from, end - from));
+			if (wrap)
+				pieces.add(new ByteArrayInputStream(PART_END));
+			return new SequenceInputStream(Collections.enumeration(pieces));
+		}
+
+		// Wait for the SubSystems parsed apart and put them in place (the last one first,
+		// so that the indexes of the others are still valid), and count their skipped subtrees
+		void merge(SXData sxData, SLContentHandler handler)
+		{
+			SXData[] results = new SXData[parts.size()];
+			for (int i=0; i<parts.size(); i++)
+			{
+				results[i] = parts.get(i).join();
+				handler.addSkipped(parts.get(i).partHandler);
+			}
+			for (int i=parts.size()-1; i>=0; i--)
+				sxData.replaceSys(parts.get(i).index, results[i]);
+		}
+
+		// Number of the parts (this one included)
+		int count()
+		{
+			int n = 1;
+			for (Part part : parts)
+				n += part.count();
+			return n;
+		}
+	}
+
+	// Exception of a part, thrown across the pool
+	private static class PartException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		PartException(XMLStreamException cause)
+		{
+			super(cause);
+		}
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Scan the bytes and build the tree of the parts. The main part is the whole file
+	private Part scan() throws XMLStreamException
+	{
+		Part main = new Part(0, buf.length, -1);
+		// Open (Sub)Systems: the part they belong to, their index in it and the begin of their body
+		ArrayList<Part> openParts = new ArrayList<Part>();
+		ArrayList<Integer> openIndexes = new ArrayList<Integer>();
+		ArrayList<Integer> openStarts = new ArrayList<Integer>();
+		// Tentative parts, one for each open (Sub)System: they become real parts if large enough.
+		// The nested (Sub)Systems are recorded in the innermost one
+		ArrayList<Part> candidates = new ArrayList<Part>();
+
+		int pos = 0;
+		int len = buf.length;
+		while (pos < len)
+		{
+			if (buf[pos] != '<')
+			{
+				pos++;
+				continue;
+			}
+			int tag = pos;
+			pos++;
+			if (pos >= len)
+				break;
+			byte c = buf[pos];
+			// Comments, CDATA, DOCTYPE and processing instructions
+			if (c == '!' && startsWith(pos, "!--"))
+				pos = indexOf(pos, "-->") + 3;
+			else if (c == '!' && startsWith(pos, "![CDATA["))
+				pos = indexOf(pos, "]]>") + 3;
+			else if (c == '!' || c == '?')
+				pos = indexOf(pos, ">") + 1;
+			// Closing tag
+			else if (c == '/')
+			{
+				boolean system = isName(pos + 1, "System");
+				pos = indexOf(pos, ">") + 1;
+				if (system && !openStarts.isEmpty())
+				{
+					int last = openStarts.size() - 1;
+					Part owner = openParts.remove(last);
+					int index = openIndexes.remove(last);
+					int bodyStart = openStarts.remove(last);
+					Part candidate = candidates.remove(last);
+					// The Main System (index 0 of the main part) is never parsed apart
+					if (tag - bodyStart >= minPartSize && !(owner == main && index == 0))
+					{
+						candidate.start = bodyStart;
+						candidate.end = tag;
+						candidate.index = index;
+						owner.parts.add(candidate);
+					}
+					else
+						// Too small: its content belongs to the owner
+						adopt(owner, candidate);
+				}
+			}
+			// Opening tag
+			else
+			{
+				boolean system = isName(pos, "System");
+				pos = endOfTag(pos);
+				if (system)
+				{
+					Part owner = candidates.isEmpty() ? main : candidates.get(candidates.size() - 1);
+					int index = owner.systems++;
+					if (buf[pos - 2] != '/')
+					{
+						Part candidate = new Part(0, 0, 0);
+						// The root of the SubSystem is created by the part itself
+						candidate.systems = 1;
+						openParts.add(owner);
+						openIndexes.add(index);
+						openStarts.add(pos);
+						candidates.add(candidate);
+					}
+				}
+			}
+		}
+		if (!openStarts.isEmpty())
+			throw new XMLStreamException("Unclosed <System> element");
+		return main;
+	}
+
+	// A (Sub)System too small to be parsed apart: its (Sub)Systems and its parts move to the owner,
+	// with indexes relative to the owner
+	private static void adopt(Part owner, Part candidate)
+	{
+		int base = owner.systems - 1;
+		for (Part part : candidate.parts)
+		{
+			part.index += base;
+			owner.parts.add(part);
+		}
+		owner.systems += candidate.systems - 1;
+	}
+
+	// Check whether the bytes at pos are the given tag name
+	private boolean isName(int pos, String name)
+	{
+		if (!startsWith(pos, name))
+			return false;
+		int next = pos + name.length();
+		if (next >= buf.length)
+			return false;
+		byte c = buf[next];
+		return c == '>' || c == '/' || c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+	// Check whether the bytes at pos start with the given (ASCII) string
+	private boolean startsWith(int pos, String s)
+	{
+		if (pos + s.length() > buf.length)
+			return false;
+		for (int i=0; i<s.length(); i++)
+			if (buf[pos + i] != s.charAt(i))
+				return false;
+		return true;
+	}
+
+	// Position of the given (ASCII) string from pos (the end of the file if not found)
+	private int indexOf(int pos, String s)
+	{
+		for (int i=pos; i<buf.length; i++)
+			if (startsWith(i, s))
+				return i;
+		return buf.length;
+	}
+
+	// Position after the end of the opening tag that starts at pos (the attribute values may contain '>')
+	private int endOfTag(int pos)
+	{
+		byte quote = 0;
+		while (pos < buf.length)
+		{
+			byte c = buf[pos++];
+			if (quote != 0)
+			{
+				if (c == quote)
+					quote = 0;
+			}
+			else if (c == '"' || c == '\'')
+				quote = c;
+			else if (c == '>')
+				return pos;
+		}
+		return pos;
+	}
+
+	// Get the encoding declared in the XML declaration (null if not declared)
+	private static String encodingOf(byte[] bytes)
+	{
+		String head = new String(bytes, 0, Math.min(bytes.length, 256), StandardCharsets.ISO_8859_1);
+		if (!head.startsWith("<?xml"))
+			return null;
+		int end = head.indexOf("?>");
+		int i = head.indexOf("encoding");
+		if (i == -1 || (end != -1 && i > end))
+			return null;
+		int start = head.indexOf('"', i);
+		if (start == -1)
+			start = head.indexOf('\'', i);
+		if (start == -1)
+			return null;
+		int close = head.indexOf(head.charAt(start), start + 1);
+		return (close == -1) ? null : head.substring(start + 1, close);
+	}
+}
@@ -0,0 +1,271 @@
+package sl2sx;
+
+import java.io.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ *
+ * Class to Parse Simulink .xml File with a StAX pull parser.
+ * Alternative front end to the SAX parsing: it fills the same Data Structure,
+ * through the same SLContentHandler, but it reads the values of the <P> tags
+ * directly and skips the subtrees that can not contain useful informations.
+ * It also reads the .slx files, by streaming the model parts out of the zip container.
+ */
+public class SLStreamParser {
+
+	// Shared factory (thread-safe once configured)
+	private static final XMLInputFactory factory = createFactory();
+	// Parts of an .slx file: main model part, and the optional ones read before it
+	private static final String SLX_BLOCKDIAGRAM = "simulink/blockdiagram.xml";
+	private static final String[] SLX_OPTIONAL_PARTS = { "simulink/bddefaults.xml", "simulink/configSet0.xml" };
+	// Folder of the (Sub)System parts, referenced by <System Ref="...">
+	private static final String SLX_SYSTEMS = "simulink/systems/";
+
+	// Handler that fills the Data Structure
+	private SLContentHandler handler;
+	// The .slx container being parsed (null for the .xml files)
+	private ZipFile slx = null;
+
+	 /**
+     * Default constructor.
+     *
+     * @param handler
+     * 				The Handler that receives the parsed Simulink elements.
+     */
+	public SLStreamParser(SLContentHandler handler)
+	{
+		this.handler = handler;
+	}
+
+	 /**
+     * Parse a Simulink .xml File.
+     *
+     * @param fileName
+     * 				Path of the Simulink .xml File.
+     */
+	public void parse(String fileName) throws XMLStreamException, IOException
+	{
+		InputStream in = new BufferedInputStream(new FileInputStream(fileName));
+		try
+		{
+			parse(in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	 /**
+     * Parse a Simulink .xml Stream.
+     *
+     * @param in
+     * 				The Stream that contains the Simulink Diagram in .xml Format.
+     */
+	public void parse(InputStream in) throws XMLStreamException
+	{
+		handler.startTranslation();
+		parseElements(in, null);
+		handler.endTranslation();
+	}
+
+	 /**
+     * Parse a Simulink .slx File, without extracting it: the model parts are
+     * streamed directly from the zip container.
+     *
+     * @param fileName
+     * 				Path of the Simulink .slx File.
+     */
+	public void parseSlx(String fileName) throws XMLStreamException, IOException
+	{
+		slx = new ZipFile(fileName);
+		try
+		{
+			ZipEntry blockDiagram = slx.getEntry(SLX_BLOCKDIAGRAM);
+			if (blockDiagram == null)
+				throw new IOException(fileName + ": " + SLX_BLOCKDIAGRAM + " not found, not a Simulink .slx file");
+
+			handler.startTranslation();
+			// Block Parameter Defaults and Simulation Parameters (stored apart since R2016a)
+			for (String part : SLX_OPTIONAL_PARTS)
+				if (slx.getEntry(part) != null)
+					parsePart(part);
+			parsePart(SLX_BLOCKDIAGRAM);
+			handler.endTranslation();
+		}
+		finally
+		{
+			slx.close();
+			slx = null;
+		}
+	}
+
+	 /**
+     * Check whether a file is a Simulink .slx File (by extension).
+     *
+     * @param fileName
+     * 				Path of the Simulink File.
+     * @return True, if the file must be read with parseSlx.
+     */
+	public static boolean isSlx(String fileName)
+	{
+		return fileName.toLowerCase().endsWith(".slx");
+	}
+
+	 /**
+     * Process all the tags of a stream, without starting or ending the translation
+     * (used also for the parts of a diagram parsed apart, see SLParallelParser).
+     *
+     * @param in
+     * 				The Stream that contains the Simulink elements.
+     * @param encoding
+     * 				The encoding of the Stream (null to detect it from the content).
+     */
+	void parseElements(InputStream in, String encoding) throws XMLStreamException
+	{
+		XMLStreamReader reader = (encoding == null) ? factory.createXMLStreamReader(in) : factory.createXMLStreamReader(in, encoding);
+		while (reader.hasNext())
+		{
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+				startElement(reader);
+			else if (event == XMLStreamConstants.END_ELEMENT)
+				endElement(reader.getLocalName());
+		}
+		reader.close();
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Process a part of the .slx container
+	private void parsePart(String entryName) throws XMLStreamException
+	{
+		ZipEntry entry = (slx == null) ? null : slx.getEntry(entryName);
+		if (entry == null)
+			throw new XMLStreamException("Model part " + entryName + " not found");
+		try
+		{
+			InputStream in = new BufferedInputStream(slx.getInputStream(entry));
+			try
+			{
+				parseElements(in, null);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new XMLStreamException("Can not read the model part " + entryName, e);
+		}
+	}
+
+	// Handle an opening tag. On return, the reader is either on the START_ELEMENT
+	// or (if the element was consumed) on the corresponding END_ELEMENT
+	private void startElement(XMLStreamReader reader) throws XMLStreamException
+	{
+		switch (reader.getLocalName())
+		{
+		// Single Parameter: read the value directly, if it is of interest
+		case "P":
+			if (handler.startParam(reader.getAttributeValue(null, "Name")))
+				handler.endParam(reader.getElementText());
+			else
+				skipSubtree(reader);
+			break;
+		case "Model":
+			handler.startModel(reader.getAttributeValue(null, "Name"));
+			break;
+		case "BlockParameterDefaults":
+			handler.startDefaults();
+			break;
+		case "System":
+			String ref = reader.getAttributeValue(null, "Ref");
+			if (ref != null)
+			{
+				// The (Sub)System content is stored in its own part (.slx files):
+				// skip the reference and parse the part in its place
+				skipSubtree(reader);
+				parsePart(SLX_SYSTEMS + ref + ".xml");
+			}
+			else
+				handler.startSystem();
+			break;
+		case "Block":
+			handler.startBlock(reader.getAttributeValue(null, "BlockType"), reader.getAttributeValue(null, "Name"), reader.getAttributeValue(null, "SID"));
+			break;
+		case "Line":
+			handler.startLine();
+			break;
+		case "Branch":
+			handler.startBranch();
+			break;
+		default:
+			// Fast-forward past the elements of no interest
+			if (handler.isSkipped(reader.getLocalName()))
+				handler.addSkipped(skipSubtree(reader));
+		}
+	}
+
+	// Handle a closing tag
+	private void endElement(String localName)
+	{
+		switch (localName)
+		{
+		case "BlockParameterDefaults":
+			handler.endDefaults();
+			break;
+		case "System":
+			handler.endSystem();
+			break;
+		case "Block":
+			handler.endBlock();
+			break;
+		case "Line":
+			handler.endLine();
+			break;
+		case "Branch":
+			handler.endBranch();
+			break;
+		}
+	}
+
+	// Move the reader to the END_ELEMENT of the current element, without processing its content.
+	// Return the number of the element events (start and end tags) skipped
+	private static long skipSubtree(XMLStreamReader reader) throws XMLStreamException
+	{
+		int depth = 1;
+		long events = 1;
+		while (depth > 0)
+		{
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				depth++;
+				events++;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				depth--;
+				events++;
+			}
+		}
+		return events;
+	}
+
+	// Create and configure the StAX factory
+	private static XMLInputFactory createFactory()
+	{
+		XMLInputFactory f = XMLInputFactory.newInstance();
+		f.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+		f.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		return f;
+	}
+}
@@ -1,5 +1,8 @@
 package sl2sx;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -16,8 +19,8 @@ public class SLSystem {
 	private String type=new String();
 	// Owner
 	private int parent;
-	// List of the blocks
-	private HashMap<String, SLBlock> blocksList = new HashMap<String, SLBlock>();
+	// List of the blocks, in the order they are added (i.e. the order of the Diagram)
+	private LinkedHashMap<String, SLBlock> blocksList = new LinkedHashMap<String, SLBlock>();
 	// Blocks Number
 	private int blockNum=0;
 	// List of InPorts
@@ -28,12 +31,14 @@ public class SLSystem {
 	private int inPortsNum;
 	// Number of OutPorts
 	private int outPortsNum;
-	// List of Variables
-	private HashMap<String, Variable> variablesList = new HashMap<String, Variable>();
+	// Variables: the ports and their wiring
+	private SignalGraph graph;
 	// True if the system is flipped.
 	private boolean blockMirror=false;
 	// Identify MainSystem
 	private boolean main = false;
+	// Names of Blocks and Variables (shared with the other Systems of the translation)
+	private SymbolTable symbols = new SymbolTable();
 		
 	// ------------------------------------>> Public Interface
 	
@@ -58,6 +63,7 @@ public class SLSystem {
 			this.type="SubSystem";
 		this.inPortsNum = 0;
 		this.outPortsNum = 0;
+		this.graph = new SignalGraph(symbols);
 	}
 	
 	  /**
@@ -123,6 +129,27 @@ public class SLSystem {
 			return 0;
 	}
 	
+	  /**
+     * Set the Symbol Table used for the names of Blocks and Variables.
+     * 
+     * @param symbols
+     * 				The SymbolTable of the translation.
+     */
+	public void setSymbols (SymbolTable symbols)
+	{
+		this.symbols = symbols;
+		this.graph.setSymbols(symbols);
+	}
+	
+	/**
+     * Get the Symbol Table used for the names of Blocks and Variables.
+     * @return The SymbolTable of the (Sub)System.
+     */
+	public SymbolTable getSymbols ()
+	{
+		return this.symbols;
+	}
+	
 	/**
      * Check whether *this is the Main System or not.
      * @return True, if *this is the Main System.
@@ -140,6 +167,7 @@ public class SLSystem {
      */
 	public void addBlock (SLBlock block)
 	{
+		block.setId(symbols.intern(block.getName()));
 		this.blocksList.put(block.getName(), block);
 		// Add also the corresponding variables
 		this.addVars(block);
@@ -152,9 +180,10 @@ public class SLSystem {
 	
 	/**
      * Get the list of the Blocks belong to the (Sub)System.
-     * @return An HashMap that contains the SL Blocks of the modeled (Sub)System.
+     * @return A LinkedHashMap that contains the SL Blocks of the modeled (Sub)System,
+     * 			in the order they were added: the SpaceEx Model follows this order.
      */
-	public HashMap<String,SLBlock> getBlocksList()
+	public LinkedHashMap<String,SLBlock> getBlocksList()
 	{
 		return this.blocksList;
 	}
@@ -238,12 +267,25 @@ public class SLSystem {
 	}
 	
 	/**
-     * Get the list of the Variables involved in the (Sub)System.
+     * Get the Signal Graph of the (Sub)System: its nodes are the Variables.
+     * @return The SignalGraph that contains the Variables and their mapping.
+     */
+	public SignalGraph getGraph()
+	{
+		return this.graph;
+	}
+	
+	/**
+     * Get the list of the Variables involved in the (Sub)System (views over the Signal
+     * Graph, built on demand: to be used only for debugging).
      * @return An HashMap that contains the list of the Variables involved in the (Sub)System.
      */
 	public HashMap<String, Variable> getVariablesList()
 	{
-		return this.variablesList;
+		HashMap<String, Variable> variablesList = new LinkedHashMap<String, Variable>();
+		for (int node=0; node<graph.size(); node++)
+			variablesList.put(symbols.getName(graph.getName(node)), graph.getVar(node));
+		return variablesList;
 	}
 	
 	// Return the variable specified by Name
@@ -255,7 +297,8 @@ public class SLSystem {
      */
 	public Variable getVar(String varName)
 	{
-		return this.variablesList.get(varName);
+		int node = varNode(varName);
+		return (node == -1) ? null : graph.getVar(node);
 	}
 	
 	  /**
@@ -270,8 +313,9 @@ public class SLSystem {
      */
 	public void addSrcPoints(String srcBlock, String srcPort, String points)
 	{
-		if (inPorts.contains(srcBlock))
-			variablesList.get(srcBlock).addSrcPoints(points);
+		int node = varNode(srcBlock);
+		if (node != -1 && graph.is(node, SignalGraph.INPORT))
+			graph.setPoints(node, points);
 		//else
 			//System.out.println(srcBlock + "   Out   " + srcPort);
 	}
@@ -290,12 +334,13 @@ public class SLSystem {
      */
 	public void addDstPoints(String dstBlock, String dstPort, ArrayList<String> points, int inBranch)
 	{
-		if (outPorts.contains(dstBlock))
+		int node = varNode(dstBlock);
+		if (node != -1 && graph.is(node, SignalGraph.OUTPORT))
 			// Add the Points to an OutPort Variable
-			variablesList.get(dstBlock).addDstPoints(points, inBranch);
+			graph.addPoints(node, points, inBranch);
 		else
 			// Add the Points to a Non-OutPort Variable
-			variablesList.get(dstBlock + "In" + dstPort).addDstPoints(points, inBranch);
+			graph.addPoints(graph.nodeOf(inVar(dstBlock, dstPort)), points, inBranch);
 	}
 	
 	/**
@@ -313,23 +358,25 @@ public class SLSystem {
      */
 	public void setMap(String srcName, String srcPort, String dstName, String dstPort)
 	{
+		int src = varNode(srcName);
+		int dst = varNode(dstName);
 		// If an InPort is involved
-    	if (inPorts.contains(srcName))
+    	if (src != -1 && graph.is(src, SignalGraph.INPORT))
     	{
     		System.out.println("Connection To " + dstName + " Port " + dstPort + " From Input Port " + srcName + "...DONE.");
-    		variablesList.get(dstName + "In" + dstPort).setMap(srcName);
+    		graph.setMap(graph.nodeOf(inVar(dstName, dstPort)), graph.getName(src));
     	}
     	// If an OutPort is involved
-    	else if (outPorts.contains(dstName))
+    	else if (dst != -1 && graph.is(dst, SignalGraph.OUTPORT))
     	{
     		System.out.println("Connection Form " + srcName + "Out" + srcPort + " To Output Port  " + dstName + "...DONE.");
-    		variablesList.get(srcName + "Out" + srcPort).setMap(dstName);	
+    		graph.setMap(graph.nodeOf(outVar(srcName, srcPort)), graph.getName(dst));	
     	}
     	// If no InPort or OutPort is involved
     	else
     	{
     		System.out.println("Connection To " + dstName + " Port " + dstPort + " From  " + srcName + " Port " + srcPort + "...DONE.");
-      		variablesList.get(dstName + "In" + dstPort).setMap(srcName + "Out" + srcPort);
+      		graph.setMap(graph.nodeOf(inVar(dstName, dstPort)), outVar(srcName, srcPort));
     	}
     }
 	
@@ -341,77 +388,155 @@ public class SLSystem {
      */
 	public void computeLink()
 	{
-		Iterator itVars = this.variablesList.entrySet().iterator();
-		
 		// For each single variable
-		while (itVars.hasNext()) 
+		for (int var=0; var<graph.size(); var++)
 		{
-		    Map.Entry entry = (Map.Entry) itVars.next();
-		
 		    // Get Var and Mapping
-		    String varName = (String)entry.getKey();
-		    Variable var = (Variable)entry.getValue();
-		    String mapName = var.getMap();
-		    Variable varMap = variablesList.get(mapName);
+		    int varMap = graph.getSource(var);
 		   
-		    String link = new String();
+		    Polyline link = null;
 		    
 		    // If is In or Outport, SKIP
-		    if (!var.isInPort() && !var.isOutPort())
+		    if (!graph.is(var, SignalGraph.INPORT) && !graph.is(var, SignalGraph.OUTPORT))
 		    { 		    	
 		    	// From Block to OutPort: just follow the points
-		    	if (var.isOutput() && varMap.isOutPort())
-		    		link = createLink(var.getXPos(), var.getYPos(),var.getPoints(), var.getPoints());
+		    	if (graph.is(var, SignalGraph.OUTPUT) && graph.is(varMap, SignalGraph.OUTPORT))
+		    		link = createLink(graph.getX(var), graph.getY(var), graph.getPoints(var), graph.getPoints(var));
 		    	// If is not From Output Var to (same) Output var
-		    	else if (!(var.isOutput() && varMap.isOutput()))
+		    	else if (!(graph.is(var, SignalGraph.OUTPUT) && graph.is(varMap, SignalGraph.OUTPUT)))
 		    	{
 		    		// Start from the Map, follow Map points and then var Points
-		  			link = createLink(varMap.getXPos(), varMap.getYPos(), varMap.getPoints(), var.getPoints());
+		  			link = createLink(graph.getX(varMap), graph.getY(varMap), graph.getPoints(varMap), graph.getPoints(var));
 		    		// Reverse the link
-		    		link = this.backLink(link);
+		    		link.reverse();
 		   		}
 		    	// Add the computed Link
-		    	this.variablesList.get(varName).setLink(link);
+		    	graph.setPolyline(var, link);
 		    }
 		}
 	}
 	
 	/**
      * Normalize the variables mapping, to eliminate useless variables (similar to the "clean"
-     * operation avaiable in the SpaceEx Editor).
+     * operation avaiable in the SpaceEx Editor). Each variable is mapped to its canonical driver,
+     * i.e. the end of its chain of mappings (a variable mapped to itself), and its link is 
+     * merged with the links of the intermediate variables. The chains are resolved as in a 
+     * union-find with path compression: each variable is visited once, whatever the length of
+     * the chains and the order of the variables (a cycle is cut where it is found).
      */
 	public void normalizeVars()
 	{
-		String link = new String();
+		int size = graph.size();
+		// Variables yet normalized, and the canonical drivers
+		boolean[] done = new boolean[size];
+		boolean[] root = new boolean[size];
+		// Chain of mappings being resolved
+		boolean[] onPath = new boolean[size];
+		int[] path = new int[size];
 		
-		Iterator itVars = this.variablesList.entrySet().iterator();
 		// For each single variable
-		while (itVars.hasNext()) 
+		for (int var=0; var<size; var++)
 		{
-		    Map.Entry entry = (Map.Entry) itVars.next();
-		    
-		    String varName = (String)entry.getKey();
-		    Variable var = (Variable)entry.getValue();
-
-		    // If the varMapping is Mapped to other variable, exchange the Mapping
-		    //if (!var.getName().equals(var.getMap()))
-		    
-		    if (!var.getMap().equals(this.variablesList.get(var.getMap()).getMap()))
-		    {
-		    	// Put together the original link with the mapping link 
-		    	link = var.getLink();
-		    	if (!link.isEmpty() && !this.variablesList.get(var.getMap()).getLink().isEmpty())
-		    		link = link + ",";
-		    	link = link + this.variablesList.get(var.getMap()).getLink();
-		    	var.setLink(link);
-	
-		    	// Exchange tha mapping
-		    	var.setMap(this.variablesList.get(var.getMap()).getMap());
-		    	this.variablesList.put(varName, var);
-		    }
-		 }    	
+			// Follow the mapping up to a normalized variable or a canonical driver
+			int len = 0;
+			int node = var;
+			while (!done[node])
+			{
+			    int varMap = graph.getSource(node);
+			    // Mapped to itself (or to a variable that is not in the System, or back to the chain)
+			    if (varMap == node || varMap == -1 || onPath[varMap])
+			    {
+			    	root[node] = true;
+			    	done[node] = true;
+			    	break;
+			    }
+			    onPath[node] = true;
+			    path[len++] = node;
+			    node = varMap;
+			}
+			// Compress the chain, from the end: the mapping of each variable is exchanged
+			for (int i=len-1; i>=0; i--)
+			{
+				int v = path[i];
+				int varMap = (i == len-1) ? node : path[i+1];
+				if (root[varMap])
+					graph.setMap(v, graph.getName(varMap));
+				else
+				{
+			    	// Put together the original link with the (yet merged) mapping link 
+					graph.setPolyline(v, Polyline.join(graph.getPolyline(v), graph.getPolyline(varMap)));
+			    	// Exchange tha mapping
+					graph.setMap(v, graph.getMap(varMap));
+				}
+				onPath[v] = false;
+				done[v] = true;
+			}
+		}
 	}		
 	
+	 /**
+     * Write the (Sub)System on a binary stream (see SXDataCache): the Blocks and the
+     * Signal Graph, as they are after the Post Processing.
+     * 
+     * @param out
+     * 				The stream.
+     */
+	void write(DataOutputStream out) throws IOException
+	{
+		SXDataCache.writeString(out, this.name);
+		SXDataCache.writeString(out, this.type);
+		out.writeInt(this.parent);
+		out.writeBoolean(this.blockMirror);
+		out.writeBoolean(this.main);
+		out.writeInt(this.blockNum);
+		out.writeInt(this.inPortsNum);
+		for (int i=0; i<this.inPortsNum; i++)
+			SXDataCache.writeString(out, this.inPorts.get(i));
+		out.writeInt(this.outPortsNum);
+		for (int i=0; i<this.outPortsNum; i++)
+			SXDataCache.writeString(out, this.outPorts.get(i));
+		// The Blocks, in the order of the list
+		out.writeInt(this.blocksList.size());
+		for (SLBlock block : this.blocksList.values())
+			block.write(out);
+		this.graph.write(out);
+	}
+	
+	 /**
+     * Read a (Sub)System written by write.
+     * 
+     * @param in
+     * 				The stream.
+     * @param symbols
+     * 				The Symbol Table of the translation (yet read).
+     * @return The (Sub)System.
+     */
+	static SLSystem read(DataInputStream in, SymbolTable symbols) throws IOException
+	{
+		String name = SXDataCache.readString(in);
+		String type = SXDataCache.readString(in);
+		SLSystem sys = new SLSystem(name, in.readInt());
+		sys.setType(type);
+		sys.setSymbols(symbols);
+		sys.blockMirror = in.readBoolean();
+		sys.main = in.readBoolean();
+		sys.blockNum = in.readInt();
+		sys.inPortsNum = in.readInt();
+		for (int i=0; i<sys.inPortsNum; i++)
+			sys.inPorts.add(SXDataCache.readString(in));
+		sys.outPortsNum = in.readInt();
+		for (int i=0; i<sys.outPortsNum; i++)
+			sys.outPorts.add(SXDataCache.readString(in));
+		int blocks = in.readInt();
+		for (int i=0; i<blocks; i++)
+		{
+			SLBlock block = SLBlock.read(in);
+			sys.blocksList.put(block.getName(), block);
+		}
+		sys.graph = SignalGraph.read(in, symbols);
+		return sys;
+	}
+	
 	// ----------------------------->> Private Methods
 	
 	// Insert a new InPort to the System
@@ -432,71 +557,76 @@ public class SLSystem {
 	// Create (and add to the System) the new variables coming from the specified block 
 	private void addVars(SLBlock block)
 	{
-		boolean hide = false;
-		String xPos = new String();
-		String yPos = new String();
-		String placement = new String();
+		int hide = 0;
+		int xPos = 0;
+		int yPos = 0;
 		
 		// If no InPort or OutPort are involved, use the convention "blockname" + ("In" || "Out") + portNum
 		if (!(block.isInPort() || block.isOutPort()))
 		{
+			// No geometry is needed for the Blocks without variables
+			if (block.getInPortNum() == 0 && block.getOutPortNum() == 0 && !block.isGoto() && !block.isFrom())
+				return;
+			int x1 = block.getX();
+			int y1 = block.getY();
+			int width = block.getW();
+			int height = block.getH();
+			int scope = block.isScope() ? SignalGraph.SCOPE : 0;
 			if (!block.isScope())
-				hide = true;
+				hide = SignalGraph.HIDE;
 			
 			for (int i=0; i<block.getInPortNum(); i++)
 			{
-				String varName=new String(block.getName() + "In" + (i+1));
+				int varName=symbols.inPortVar(block.getId(), i+1);
 				if (block.isBlockMirror())
-					xPos = "" + (Integer.parseInt(block.getX1Pos()) + Integer.parseInt(block.getWidth())/2);
+					xPos = x1 + width/2;
 				else
-					xPos = "" + (Integer.parseInt(block.getX1Pos()) - Integer.parseInt(block.getWidth())/2);
-				yPos = "" + ((Integer.parseInt(block.getY1Pos()) - Integer.parseInt(block.getHeight())/2) + ((Integer.parseInt(block.getHeight()) / (block.getInPortNum()+1)) * (i+1)));
+					xPos = x1 - width/2;
+				yPos = (y1 - height/2) + ((height / (block.getInPortNum()+1)) * (i+1));
 				
-				Variable var=new Variable(varName, true, false, false, false, block.isScope(), xPos, yPos, hide);
-				var.setWestPlacement(!block.isBlockMirror());
-				variablesList.put(varName, var);
+				int var=graph.add(varName, SignalGraph.INPUT | scope | hide, xPos, yPos);
+				graph.setFlag(var, SignalGraph.WEST, !block.isBlockMirror());
 			}
 			for (int i=0; i<block.getOutPortNum(); i++)
 			{
-				String varName=new String(block.getName() + "Out" + (i+1));
+				int varName=symbols.outPortVar(block.getId(), i+1);
 				if (block.isBlockMirror())
-					xPos = "" + (Integer.parseInt(block.getX1Pos()) - Integer.parseInt(block.getWidth())/2);
+					xPos = x1 - width/2;
 				else
-					xPos = "" + (Integer.parseInt(block.getX1Pos()) + Integer.parseInt(block.getWidth())/2);
-				yPos = "" + ((Integer.parseInt(block.getY1Pos()) - Integer.parseInt(block.getHeight())/2) + ((Integer.parseInt(block.getHeight()) / (block.getOutPortNum()+1)) * (i+1)));
+					xPos = x1 + width/2;
+				yPos = (y1 - height/2) + ((height / (block.getOutPortNum()+1)) * (i+1));
 				
-				Variable var=new Variable(varName, false, true, false, false, block.isScope(), xPos, yPos, hide);
-				var.setWestPlacement(block.isBlockMirror());
-				variablesList.put(varName, var);
+				int var=graph.add(varName, SignalGraph.OUTPUT | scope | hide, xPos, yPos);
+				graph.setFlag(var, SignalGraph.WEST, block.isBlockMirror());
 			}
 
 			// If Goto Block, add the corresponding variable
 			if (block.isGoto())
 			{
-				String varName=new String("Goto_" + block.getGotoTag());
+				int varName=symbols.intern("Goto_" + block.getGotoTag());
 				if (block.isBlockMirror())
-					xPos = "" + (Integer.parseInt(block.getX1Pos()) - Integer.parseInt(block.getWidth())/2);
+					xPos = x1 - width/2;
 				else
-					xPos = "" + (Integer.parseInt(block.getX1Pos()) + Integer.parseInt(block.getWidth())/2);
-				Variable var=new Variable(varName, false, false, false, false, false, xPos, block.getY1Pos(), true);
-				var.setWestPlacement(block.isBlockMirror());
-				variablesList.put(varName, var);
+					xPos = x1 + width/2;
+				int var=graph.add(varName, SignalGraph.HIDE, xPos, y1);
+				graph.setFlag(var, SignalGraph.WEST, block.isBlockMirror());
 			}
 			// If Goto or From block, add the corresponding map between them
 			if (block.isGoto() || block.isFrom())
 			{
+				int gotoVar = symbols.intern("Goto_" + block.getGotoTag());
 				if (block.isFrom())
-					variablesList.get(block.getName() + "In1").setMap("Goto_" + block.getGotoTag());
+					graph.setMap(graph.nodeOf(symbols.inPortVar(block.getId(), 1)), gotoVar);
 				else if (block.isGoto())
-					variablesList.get(block.getName() + "Out1").setMap("Goto_" + block.getGotoTag());
+					graph.setMap(graph.nodeOf(symbols.outPortVar(block.getId(), 1)), gotoVar);
 			}				
 		}
 		// If InPort or OutPort involved add just the (In/Out)Port Name
 		else
 		{
 			String varName=new String(block.getName());
-			Variable var=new Variable(varName, false, false, block.isInPort(), block.isOutPort(), false, block.getX1Pos(), block.getY1Pos(), false);
-			variablesList.put(varName, var);
+			graph.add(block.getId(), block.isInPort() ? SignalGraph.INPORT : SignalGraph.OUTPORT,
+					block.getX(), block.getY());
 			// Update the list of InPort
 			if (block.isInPort())
 				inPorts.add(varName);
@@ -507,85 +637,32 @@ public class SLSystem {
 	}
 	
 
-	// Create the Link starting from (x1,y1) position and following points1 and the point2
-	private String createLink(String x1, String y1, String points1, String points2)
-	{
-		// Get initial position
-		int x = Integer.parseInt(x1);
-		int y = Integer.parseInt(y1);
-		int incX = 0;
-		int incY = 0;
-		int start = 0;
-		int end = 0;
-			
-    	// Put Points1 and Point2 together (if possible)
-		String link = new String();
-    	String points = new String(points1);
-    	if (!points.isEmpty() && !points2.isEmpty())
-    		points = points + ", ";
-    	points = points + points2;
-
-    	// Remove the useless characters
-    	points = points.replace(";", ",");
-		points = points.replace("][", ", ");
-		points = points.replace("[", "");
-		points = points.replace("]", "");		
-		
-		// Loop on each value
-		while (end<points.length() && end!=-1)
-		{
-		   	end = points.indexOf(",", start);
-		   	// Get the increment for x
-		   	incX = Integer.parseInt(points.substring(start, end));
-		   		
-		   	start = end + 2;
-		   	end = points.indexOf(",", start);
-		   	if (end==-1)
-		   		end=points.length();
-		   	// Get the increment for y
-		   	incY = Integer.parseInt(points.substring(start, end));
-
-		   	// Increase x,y
-		   	x = x + incX;
-			y = y + incY;
-			
-			// Built link step-by-step
-			link = link + x + ".0," + y + ".0";
-			if (end!=points.length())
-				link = link + ",";
-			start = end + 2;
-		}		
-		return link;
+	// Node of the Variable with the given name (-1 if not present)
+	private int varNode(String varName)
+	{
+		int name = symbols.getId(varName);
+		return (name == -1) ? -1 : graph.nodeOf(name);
 	}
 	
-	// Return the link in the opposite direction
-	private String backLink(String link)
+	// Id of the Variable that models the Input port of a Block ("blockname" + "In" + portNum)
+	private int inVar(String blockName, String port)
 	{
-		int start = 0;
-		int start2 = 0;
-		int end = 0;
-
-		String backLink = new String();
-    	
-  		// Loop form the end
-		while (end<link.length())
-		{
-			end = link.indexOf(",", start2);
-			start2 = end + 1;
-			end = link.indexOf(",", start2);
-			if (end==-1)
-				end=link.length();
-	
-			// Take the couple and put them at the begin
-			backLink = link.substring(start, end) + backLink;
-			
-			if (end!=link.length())
-				backLink = "," + backLink;
-			
-			start = end + 1;
-			start2 = start;
-		}
-		return backLink;
+		return symbols.inPortVar(symbols.intern(blockName), Integer.parseInt(port.trim()));
+	}
+	
+	// Id of the Variable that models the Output port of a Block ("blockname" + "Out" + portNum)
+	private int outVar(String blockName, String port)
+	{
+		return symbols.outPortVar(symbols.intern(blockName), Integer.parseInt(port.trim()));
+	}
+	
+	// Create the Link starting from (x1,y1) position and following points1 and the point2
+	private static Polyline createLink(int x1, int y1, String points1, String points2)
+	{
+		Polyline link = new Polyline(x1, y1);
+		link.addRelative(points1);
+		link.addRelative(points2);
+		return link;
 	}
 	
 // End of Class
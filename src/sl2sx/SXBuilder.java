@@ -10,9 +10,16 @@ import fr.imag.verimag.spaceex_moe.sspaceex.SxLocation;
 import fr.imag.verimag.spaceex_moe.sspaceex.SxMap;
 import fr.imag.verimag.spaceex_moe.sspaceex.SxParam;
 import fr.imag.verimag.spaceex_moe.sspaceex.SxSspaceex;
-import fr.imag.verimag.spaceex_moe.sspaceex.SxTransition;
+
+import org.jdom.Element;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  *  
@@ -22,8 +29,41 @@ import java.io.*;
  */
 public class SXBuilder 
 {
+	// Maximum number of Blocks translated by a single task of the pool
+	private static final int TASK_BLOCKS = 64;
+	// SpaceEx Models and scratch Models released by the previous translations: the spaceex_moe
+	// Models are registered for ever in a static list, so they are reused (see takeModel)
+	private static final ConcurrentLinkedQueue<SxSspaceex> models = new ConcurrentLinkedQueue<SxSspaceex>();
+	private static final ConcurrentLinkedQueue<Scratch> scratches = new ConcurrentLinkedQueue<Scratch>();
+	
 	private SXData sxData = new SXData();
 	private SxSspaceex sx;
+	// Structural signature of a Base Component --> name of the component (the Blocks with
+	// the same signature share the component)
+	private HashMap<String, String> signatures = new HashMap<String, String>();
+	// Names of the components yet created (the ids of the Model must be unique)
+	private HashSet<String> names = new HashSet<String>();
+	// Scratch Model of this thread, where a Base Component is built to compute its signature
+	// (and then attached to the Model, if no component has the same signature)
+	private Scratch scratch = null;
+	// Pool that builds the Base Components (null: on this thread)
+	private ForkJoinPool pool = null;
+	// Structural signature of a Network Component --> name of the component (the identical
+	// (Sub)Systems share the component)
+	private HashMap<String, String> netSignatures = new HashMap<String, String>();
+	// Index of a (Sub)System --> name of the Network Component that models it
+	private HashMap<Integer, String> networks = new HashMap<Integer, String>();
+	// Index of a (Sub)System --> structural signature of its Network Component
+	private HashMap<Integer, String> sysSignatures = new HashMap<Integer, String>();
+	// If True, the components are written as soon as they are complete (see SXWriter)
+	private boolean streamOutput = false;
+	// Streaming backend (null if the Model is kept in the JDOM Document and saved at the end)
+	private SXWriter writer = null;
+	// Streams where the Model and its Configuration are written (null: the SX_ files)
+	private OutputStream modelOut = null;
+	private OutputStream configOut = null;
+	// With the streaming backend: Base Component --> number of the binds still to create
+	private HashMap<String, Integer> pendingBinds = new HashMap<String, Integer>();
 	
 	 /**
      * Default constructor.
@@ -32,9 +72,54 @@ public class SXBuilder
      * 				The Data Structure that contains all the processed Simulink Diagram Informations.
      */
 	public SXBuilder (SXData sxData)
+	{
+		this(sxData, false);
+	}
+	
+	 /**
+     * Constructor with the choice of the output backend.
+     * 
+     * @param sxData
+     * 				The Data Structure that contains all the processed Simulink Diagram Informations.
+     * @param streamOutput
+     * 				If True, the components are written on file as soon as they are complete
+     * 				(SXWriter), else the Model is kept in the JDOM Document and saved at the end.
+     */
+	public SXBuilder (SXData sxData, boolean streamOutput)
 	{
 		this.sxData = sxData;
-		this.sx = Factory.creatSspaceex(new File("SX_" + sxData.getFileName() + ".xml"));
+		this.sx = takeModel();
+		this.streamOutput = streamOutput;
+	}
+	
+	 /**
+     * Used to write the SpaceEx Model and its Configuration on streams (i.e. in memory),
+     * instead of the files SX_name.xml and SX_name.cfg of the working directory.
+     * The streams are flushed, not closed.
+     * 
+     * @param model
+     * 				The stream of the SpaceEx Model (.xml).
+     * @param config
+     * 				The stream of the SpaceEx Model Configuration (.cfg).
+     */
+	public void setOutput(OutputStream model, OutputStream config)
+	{
+		this.modelOut = model;
+		this.configOut = config;
+	}
+	
+	 /**
+     * Used to build the Base Components on a fork/join pool: the Blocks are translated
+     * concurrently into their components and structural signatures, that are then
+     * attached to the Model on this thread, in the order of the serial translation (same output).
+     * The Block Translators must allow concurrent calls (see BlockTranslator).
+     * 
+     * @param pool
+     * 				The pool that translates the Blocks (null to translate them on this thread).
+     */
+	public void setPool(ForkJoinPool pool)
+	{
+		this.pool = pool;
 	}
 	
 	/**
@@ -43,64 +128,168 @@ public class SXBuilder
      */
 	public void extractSXModel()
 	{		
-		// Used to avoid to build several Constant and Gain Basic Component
-		ArrayList<String> yetCreated = new ArrayList<String>();
-		boolean toCreate = false;
-		
 		// Create BaseComponent to model a Clock
-		createClockBaseComponent();
+		startSXModel();
 		
-	    // Scan the SystemsList
-	    for (int i=sxData.getSysNum()-1; i>=0; i--)
-		{
-			SLSystem sys = sxData.getSys(i);
-			
-			// Scan the BlocksList
-			Iterator itSys = sys.getBlocksList().entrySet().iterator();
-			while (itSys.hasNext()) 
+	    // Scan the SystemsList: the Base Components (the Model lists them before the
+	    // Network Components)
+	    if (pool != null)
+	    	addBlocks();
+	    else
+			for (int i=sxData.getSysNum()-1; i>=0; i--)
 			{
-				Map.Entry entry = (Map.Entry) itSys.next();
-				String key = (String)entry.getKey();
-				SLBlock block = (SLBlock)entry.getValue();
-				
-				// Skip if block is a SubSys or an In/OutPort
-				if (block.isSubSys() || block.isInPort() || block.isOutPort())
-					toCreate = false;
-				// If is a Default or Constant or Gain Block, check whether was yet created
-				else if ((block.isDefault() || block.isConstant() || block.isGain()) && !sxData.isMirrorBlockOn())
+				SLSystem sys = sxData.getSys(i);
+			
+				// Scan the BlocksList
+				Iterator itSys = sys.getBlocksList().entrySet().iterator();
+				while (itSys.hasNext()) 
 				{
-					// If not yet created
-					if (!yetCreated.contains(block.getType()))
-					{
-						yetCreated.add(block.getType());
-						toCreate = true;
-					}
+					Map.Entry entry = (Map.Entry) itSys.next();
+					String key = (String)entry.getKey();
+					SLBlock block = (SLBlock)entry.getValue();
+				
+					// Write the Basic Component
+					addBlock(sys, block);
 				}
-				// If is a nonDefault block and also is not a Constant or Gain Type
-				// add the SubSystem owner name before block name
+			}
+	    // Create the Network Components and write the Model
+	    endSXModel();
+	}
+	
+	// Begin of the SpaceEx Model: open the streaming backend (if any) and create the Clock
+	private void startSXModel()
+	{
+		if (streamOutput)
+		{
+			try
+			{
+				if (modelOut != null)
+					writer = new SXWriter(modelOut);
 				else
-				{
-					block.setExtType(sys.getName() + block.getName());
-					toCreate = true;
-				}
-				// Write the Basic Component
-				if (toCreate)
-				{
-					// Create the Basic Component
-					createBaseComponent(block);
-					toCreate = false;
-				}
-			}				
-			// Create the Network Component
-			boolean mainSys=false;
-			if (i==0)
-				mainSys=true;
-			createNetworkComponent(sys, mainSys);
+					writer = new SXWriter(new File("SX_" + sxData.getFileName() + ".xml"));
+				writer.startModel(sx);
+			}
+			catch (IOException e)
+			{
+				writeFailed(e);
+			}
 		}
+		// Create BaseComponent to model a Clock
+		createClockBaseComponent();
+		// The names of the Clock and of the Main System are reserved
+		names.add("Clock");
+		names.add(sxData.getName());
+	}
+	
+	 /**
+     * Create the SpaceEx Base Component that models a Block of a (Sub)System, if needed:
+     * the Blocks whose components have the same structure (the same Type, ports, placement
+     * and dynamics, the values of the Block being mapped in the bind) share a single Base
+     * Component, the SubSystems and the In/OutPorts have no Base Component.
+     * A component is named after the Block Type, followed by a number if other components
+     * of the same Type were yet created (e.g. Sum, Sum2, ...).
+     * The name of the component used by the Block is stored as its Extended Type.
+     * 
+     * @param sys
+     * 				Is the Simulink (Sub)System that owns the Block.
+     * @param block
+     * 				Is the Simulink Block to model.
+     */
+	private void addBlock(SLSystem sys, SLBlock block)
+	{
+		// Skip if block is a SubSys or an In/OutPort
+		if (block.isSubSys() || block.isInPort() || block.isOutPort())
+			return;
+		if (scratch == null)
+			scratch = takeScratch();
+		Element element = build(scratch, block);
+		addBlock(sys, block, signature(scratch, block, element), element);
+	}
+	
+	// Create the Base Component of a Block, given the structural signature of the component
+	// and its content, built in a scratch Model
+	private void addBlock(SLSystem sys, SLBlock block, String signature, Element element)
+	{
+		// Check whether a component with the same structure was yet created
+		String name = signatures.get(signature);
+		if (name == null)
+		{
+			// The component is named after the Type (it may be shared by several Blocks)
+			name = uniqueName(block.getType());
+			signatures.put(signature, name);
+			
+			// Attach the Basic Component
+			block.setExtType(name);
+			SxComponentBase basic = attachBaseComponent(element, name);
+			if (writer != null)
+				write(basic);
+		}
+		else
+			block.setExtType(name);
+		// The Base Component can be released once all its binds are created
+		if (writer != null)
+		{
+			Integer binds = pendingBinds.get(name);
+			pendingBinds.put(name, (binds == null) ? 1 : binds + 1);
+		}
+	}
+	
+	/**
+     * End of the SpaceEx Model: create the Network Components and write the Model on file.
+     * 
+     * @throws UncheckedIOException
+     * 				If the Model can not be written.
+     */
+	private void endSXModel()
+	{
+	    // Scan the SystemsList
+	    for (int i=sxData.getSysNum()-1; i>=0; i--)
+			createNetworkComponent(i, sxData.getSys(i), i==0);
 	    
-		sx.getModDoc().save();
+	    try
+	    {
+		    if (writer == null)
+		    {
+		    	// The outputter of the JDOM backend (a copy: it is not thread safe)
+		    	XMLOutputter outputter = (XMLOutputter) SxSspaceex.getXMLOutputter().clone();
+		    	if (modelOut != null)
+		    	{
+		    		outputter.output(sx.getDocument(), modelOut);
+		    		modelOut.flush();
+		    	}
+		    	else
+		    	{
+		    		// As ModDoc.save (the reused Models are not bound to the file)
+		    		OutputStream out = new BufferedOutputStream(new FileOutputStream("SX_" + sxData.getFileName() + ".xml"));
+		    		try
+		    		{
+		    			outputter.output(sx.getDocument(), out);
+		    		}
+		    		finally
+		    		{
+		    			out.close();
+		    		}
+		    	}
+		    }
+		    else
+		    {
+		    	writer.endModel();
+		    	writer = null;
+		    }
+	    }
+	    catch (IOException e)
+	    {
+	    	writeFailed(e);
+	    }
+	    finally
+	    {
+	    	releaseModel();
+	    }
 		
-		System.out.println("\n File SX_" + sxData.getFileName() + ".xml file...CREATED.\n");
+		if (modelOut != null)
+			System.out.println("\n Model SX_" + sxData.getFileName() + ".xml...WRITTEN.\n");
+		else
+			System.out.println("\n File SX_" + sxData.getFileName() + ".xml file...CREATED.\n");
 	}
 	
 	 /**
@@ -123,22 +312,29 @@ public class SXBuilder
 		loc1.setFlow("t' == 1");
 		// ???? Add the invariant to models the Simulation Stop Time		
 		//loc1.setInvariant("t<=" + this.sxData.getStopTime());		
+		if (writer != null)
+			write(clock);
 	}
 	
 	 /**
      * Create the SpaceEx Base Component that models a specified Simulink Block.
      * 
+     * @param sx
+     * 				Is the SpaceEx Model where the component is created.
      * @param block
      * 				Is the Simulink Block to model.
+     * @param name
+     * 				Is the name of the component.
      */
-	private SxComponentBase createBaseComponent(SLBlock block)
+	private SxComponentBase createBaseComponent(SxSspaceex sx, SLBlock block, String name)
 	{
-		SxComponentBase basic = Factory.creatBaseComponent(sx, block.getExtType());
+		SxComponentBase basic = Factory.creatBaseComponent(sx, name);
+		SymbolTable symbols = sxData.getSymbols();
 		
 		// Create the Parameters to model the Block Input Variables
 		for (int i=1; i<=block.getInPortNum(); i++)
 		{
-			SxParam in = Factory.creatRealVariable(basic, "In" + i);
+			SxParam in = Factory.creatRealVariable(basic, symbols.inName(i));
 			in.setLocal(false);
 			in.setControlled(false);
 			if (block.isBlockMirror())
@@ -149,11 +345,11 @@ public class SXBuilder
 		// Create the Parameters to model the Block Output Variables
 		for (int i=1; i<=block.getOutPortNum(); i++)
 		{
-			SxParam out = Factory.creatRealVariable(basic, "Out" + i);
+			SxParam out = Factory.creatRealVariable(basic, symbols.outName(i));
 			out.setLocal(false);
-			// If the block is an Integrator, the parameter that models the output
+			// If the block has a state (i.e. an Integrator), the parameter that models the output
 			// must be Controlled
-			if (block.isIntegrator())
+			if (block.getTranslator().isControlled())
 				out.setControlled(true);
 			else
 				out.setControlled(false);
@@ -166,221 +362,8 @@ public class SXBuilder
 		SxLocation loc1 = Factory.creatLocation(basic);
 		loc1.setName("loc01");
 		
-		// Add the flow for the Integrator
-		if (block.getType().equals("Integrator"))
-		{
-			loc1.setFlow("Out1' == In1");
-			if (block.getExternalReset().equals("rising") ||
-					block.getExternalReset().equals("falling"))
-			{
-				// Add another Location to a Basic Component
-				SxLocation loc2 = Factory.creatLocation(basic);
-				loc2.setName("loc02");
-				// Add the invariant for the first location		
-				loc1.setInvariant("In2<=0");
-				// Add the invariant for the second location		
-				loc2.setInvariant("In2>=0");
-				// Add a transition from loc1 to loc2
-				SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
-				t1.setGuard("In2 == 0");
-				// Add a transition fron loc2 to loc1
-				SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
-				t2.setGuard("In2 <= 0");
-
-				// Add the corresponding reset
-				if (block.getExternalReset().equals("rising"))
-					// For rising reset
-					t2.setAssignment("Out1:=0");
-				else
-					// For falling reset
-					t1.setAssignment("Out1:=0");
-			}
-		}	
-		else if (block.isConstant())
-		{
-			SxParam constant = Factory.creatConstant(basic, "K");
-			constant.setLocal(false);
-			constant.setDynamics("constant");
-			// Invariant that models the constant blockType
-			loc1.setInvariant("Out1==K");
-		}
-		else if (block.isGain())
-		{
-			SxParam gain = Factory.creatConstant(basic, "Gain");	
-			gain.setLocal(false);
-			gain.setDynamics("constant");
-			// Invariant that models the gain blockType
-			loc1.setInvariant("Out1==Gain*In1");
-		}
-		// For Goto or From BlockType
-		else if (block.isGoto() ||
-				block.isFrom())
-			// the invariant just propagate the input to the output
-			loc1.setInvariant("Out1==In1");
-		// Switch BlockType
-		//else if (block.isSwitch() && block.isSupported())
-		//{			
-			// Add the location to model the second control mode
-		//	SxLocation loc2 = Factory.creatLocation(basic);
-		//	loc2.setName("loc02");
-			// Define the output for each the two of control modes
-		//	loc1.setInvariant("Out1==In1 && In2 <= " + block.getThreshold());
-		//	loc2.setInvariant("Out1==In3 && In2 >= " + block.getThreshold());
-			// Define the transition between the control modes
-		//	SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
-		//	t1.setGuard("In2 >= " + block.getThreshold());
-		//	SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
-		//	t2.setGuard("In2 <= " + block.getThreshold());
-		//	t1.setAsap(true);
-		//}
-		// Sum blockType
-		else if (block.isSum())
-		{
-			String invariant = new String("Out1==");
-			// Take the sequence of the operations (+ or -) and make the invariant
-			for (int i=0; i<block.getInputs().length(); i++)
-			{
-				if (block.getInputs().charAt(i)=='+' && i==0)
-					invariant = invariant + "In1";
-				else
-					invariant = invariant + block.getInputs().charAt(i) + "In" + (i+1);
-			}
-			
-			loc1.setInvariant(invariant);
-		}
-		// Product blockType
-		else if (block.isProduct())
-		{
-			String invariant = new String("Out1==");
-
-			try
-			{
-	             int inNum=Integer.parseInt(block.getInputs());
-	            
-	             for (int i=0; i<inNum; i++)
-	             {
-	     			if (i==0)
-						invariant = invariant + "In1";
-					else
-						invariant = invariant + "*" + "In" + (i+1);
-	             }
-	 		}
-			catch (NumberFormatException e)
-			{
-				// Take the sequence of the operations (+ or -) and make the invariant
-				for (int i=0; i<block.getInputs().length(); i++)
-				{
-					if (block.getInputs().charAt(i)=='*' && i==0)
-						invariant = invariant + "In1";
-					else
-						invariant = invariant + block.getInputs().charAt(i) + "In" + (i+1);
-			
-				}
-			}
-			loc1.setInvariant(invariant);
-		}
-		// DeadZone blockType
-		else if(block.isDeadZone())
-		{
-			// Add the location to model the upper UL state
-			SxLocation loc2 = Factory.creatLocation(basic);
-			loc2.setName("loc02");
-			// Add the location to model the lower LL state
-			SxLocation loc3 = Factory.creatLocation(basic);
-			loc2.setName("loc03");
-			
-			// Define the output for each the three states
-			loc1.setInvariant("Out1==0 && In1 >= " + block.getLowerValue() + " && In1 <= " + block.getUpperValue());			
-			loc2.setInvariant("Out1==In1 - " + block.getUpperValue() + " && In1 >= " + block.getUpperValue());
-			loc3.setInvariant("Out1==In1 - " + block.getLowerValue() + " && In1 <= " + block.getLowerValue());
-			// Define the transition among the states
-			SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
-			t1.setGuard("In1>= " + block.getUpperValue());
-			SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
-			t2.setGuard("In1 <= " + block.getUpperValue());
-			SxTransition t3 = Factory.creatTransition(basic, loc1, loc3);
-			t3.setGuard("In1 <= " + block.getLowerValue());
-			SxTransition t4 = Factory.creatTransition(basic, loc3, loc1);
-			t4.setGuard("In1 >= " + block.getLowerValue());
-		}
-		// Saturate blockType
-		else if(block.isSaturate())
-		{
-			// Add Constants for Upper and Lower Limit
-			SxParam uL = Factory.creatConstant(basic, "uL");	
-			uL.setLocal(false);
-			uL.setDynamics("constant");
-			SxParam lL = Factory.creatConstant(basic, "lL");	
-			lL.setLocal(false);
-			lL.setDynamics("constant");
-			
-			// Add the location to model the upper UL state
-			SxLocation loc2 = Factory.creatLocation(basic);
-			loc2.setName("loc02");
-			// Add the location to model the lower LL state
-			SxLocation loc3 = Factory.creatLocation(basic);
-			loc2.setName("loc03");
-			
-			// Define the output for each the three states
-			loc1.setInvariant("Out1==In1 && In1 >= lL && In1 <= uL");			
-			loc2.setInvariant("Out1==lL && In1 <=lL ");
-			loc3.setInvariant("Out1==uL && In1 >= uL");
-			// Define the transition among the states
-			SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
-			t1.setAssignment("Out1'==lL");
-			SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
-			t2.setAssignment("Out1'==In1");
-			SxTransition t3 = Factory.creatTransition(basic, loc1, loc3);
-			t3.setAssignment("Out1'==uL");
-			SxTransition t4 = Factory.creatTransition(basic, loc3, loc1);
-			t4.setAssignment("Out1'==In1");
-		}
-	
-		else if (block.isTrigonometry())
-		{
-			if (block.getOperator().equals("sin"))
-				loc1.setInvariant("Out1==sin(In1)");
-			else if (block.getOperator().equals("cos"))
-				loc1.setInvariant("Out1==cos(In1)");
-		}
-		
-		// Logic blockType
-		else if(block.isLogic())
-		{
-			// Add the location to model the False state
-			SxLocation loc2 = Factory.creatLocation(basic);
-			loc2.setName("loc02");
-			
-			// Define the output for each of the two states
-			loc1.setInvariant("Out1==1");			
-			loc2.setInvariant("Out1==0");
-			
-			if (block.getOperator().equals("AND"))
-			{
-				int inNum=Integer.parseInt(block.getInputs());
-		        // One transition from loc1 to loc2 for each input
-				for (int i=0; i<inNum; i++)
-		        {
-		           	 SxTransition t1 = Factory.creatTransition(basic, loc1, loc2);
-		 			 String guard = new String("");
-					 guard = "In" + (i+1) + "==0";
-					 t1.setGuard(guard);
-					 t1.setAsap(true);
-		        }
-				// A single transition from loc2 to loc1
-		    	SxTransition t2 = Factory.creatTransition(basic, loc2, loc1);
-		    	String guard = new String("");
-		    	for (int i=0; i<inNum; i++)
-		        {
-		    		if (i<inNum-1)
-		    			guard = guard + "In" + (i+1) + "<>0 && ";
-		    		else
-		    			guard = guard + "In" + (i+1) + "<>0";
-				}
-		    	t2.setGuard(guard);
-			    t2.setAsap(true);
-			}
-		}
+		// Add the dynamics of the Block Type
+		block.getTranslator().createBaseComponent(block, basic, loc1);
 		
 		return basic;
 	}
@@ -389,84 +372,127 @@ public class SXBuilder
 	
 	 /**
      * Create the SpaceEx Network Component that models a specified Simulink (Sub)System.
+     * The identical (Sub)Systems (i.e. the copies of a library SubSystem) are translated once:
+     * they share the Network Component of the first one, that is bound several times.
      * 
+     * @param index
+     * 				Is the index of the Simulink (Sub)System.
      * @param sys
      * 				Is the Simulink (Sub)System to model.
      * @param mainSys
      * 				true means that the system is the main system.
      */
-	private void createNetworkComponent(SLSystem sys, boolean mainSys)
+	private void createNetworkComponent(int index, SLSystem sys, boolean mainSys)
 	{
-		ArrayList<String> vars = new ArrayList<String>();
+		// If an identical (Sub)System was yet translated, share its Network Component
+		String signature = signature(index, sys, mainSys);
+		sysSignatures.put(index, signature);
+		String name = netSignatures.get(signature);
+		if (name != null)
+		{
+			networks.put(index, name);
+			// With the streaming backend, the binds of this (Sub)System will never be created
+			if (writer != null)
+				releaseBaseComponents(sys);
+			return;
+		}
+		// The name of the (Sub)System, or its path if another component has the same name
+		// (the SubSystems of different parents may have the same name)
+		if (mainSys)
+			name = sys.getName();
+		else if (!names.contains(sys.getName()))
+			name = uniqueName(sys.getName());
+		else
+			name = uniqueName(sxData.getPath(index).substring(sxData.getPath(0).length() + 1).replace('/', '_'));
+		netSignatures.put(signature, name);
+		networks.put(index, name);
+		
+		SignalGraph graph = sys.getGraph();
+		SymbolTable symbols = sxData.getSymbols();
+		// Variables (nodes) yet defined as Parameters
+		boolean[] vars = new boolean[graph.size()];
 		String placement = new String();
 		
-		SxComponentNetwork net = Factory.creatNetworkComponent(sx, sys.getName());
+		SxComponentNetwork net = Factory.creatNetworkComponent(sx, name);
 		
 		// For Each InPorts
 		for (int i=0; i<sys.getInPortNum(); i++)
 		{
+			int node = graph.nodeOf(symbols.getId(sys.getInPort(i)));
 			// Create the corresponding Parameters
 			SxParam in = Factory.creatRealVariable(net, sys.getInPort(i));
 			in.setLocal(false);
 			in.setControlled(false);
-			in.setPosition(Integer.parseInt(sys.getVariablesList().get(sys.getInPort(i)).getXPos()), Integer.parseInt(sys.getVariablesList().get(sys.getInPort(i)).getYPos()));
+			in.setPosition(graph.getX(node), graph.getY(node));
 			if (sys.isBlockMirror())
 				in.setPlacement("east");
 			else
 				in.setPlacement("west");
 			// Put the Var in an track list to avoid a new creation of the same var
-			vars.add(sys.getInPort(i));
+			vars[node] = true;
 		}
 		// For Each OutPorts
 		for (int i=0; i<sys.getOutPortNum(); i++)
 		{
+			int node = graph.nodeOf(symbols.getId(sys.getOutPort(i)));
 			// Create the corresponding Parameters
 			SxParam out = Factory.creatRealVariable(net, sys.getOutPort(i));
 			out.setLocal(false);
 			out.setControlled(false);
-			out.setPosition(Integer.parseInt(sys.getVariablesList().get(sys.getOutPort(i)).getXPos()), Integer.parseInt(sys.getVariablesList().get(sys.getOutPort(i)).getYPos()));
+			out.setPosition(graph.getX(node), graph.getY(node));
 			if (sys.isBlockMirror())
 				out.setPlacement("west");
 			else
 				out.setPlacement("east");
 			// Put the Var in an track list to avoid a new creation of the same var
-			vars.add(sys.getOutPort(i));
+			vars[node] = true;
 		}
 		
-		// Scan the Variables List to create the Network Component Paramters 
-		Iterator itVars = sys.getVariablesList().entrySet().iterator();
-		while (itVars.hasNext()) 
+		// Scan the Variables to create the Network Component Paramters 
+		for (int var=0; var<graph.size(); var++)
 		{
-			Map.Entry entry = (Map.Entry) itVars.next();
-			String key = (String)entry.getKey();
-			Variable var = (Variable)entry.getValue();
+			int map = graph.getSource(var);
 			
 			// If the variable was not yet defined
-			if (!vars.contains(var.getMap()))
+			if (!vars[map])
 			{	
 				// InPorts in west side, OutPorts in east
-				if (sys.getVariablesList().get(var.getMap()).isInPort())
+				if (graph.is(map, SignalGraph.INPORT))
 					placement = "west";
 				else 
 					placement = "east";
 				
 				// Create the Parameter
-				SxParam par = Factory.creatRealVariable(net, var.getMap());
+				SxParam par = Factory.creatRealVariable(net, symbols.getName(graph.getName(map)));
 				// The parameters of the main System are not local
 				if(mainSys)
 					par.setLocal(false);
 				else
 					par.setLocal(true);
 				par.setControlled(false);
-				par.setPosition(Integer.parseInt(sys.getVariablesList().get(var.getMap()).getXPos()), Integer.parseInt(sys.getVariablesList().get(var.getMap()).getYPos()));
+				par.setPosition(graph.getX(map), graph.getY(map));
 				par.setPlacement(placement);
 				
 				// Put the Var in an track list to avoid a new creation of the same var
-				vars.add(var.getMap());
+				vars[map] = true;
 			}
 		}		
 		// Create and then write the Bind on the outFile
-		createBinds(sys, net, mainSys);
+		createBinds(index, sys, net, mainSys);
+		// With the streaming backend, write the component (the binds are complete, and so
+		// are the Controlled Parameters) and release it
+		if (writer != null)
+		{
+			try
+			{
+				writer.write(net, 1);
+			}
+			catch (IOException e)
+			{
+				writeFailed(e);
+			}
+			release(sys, net);
+		}
 	}
 
 		
@@ -474,6 +500,8 @@ public class SXBuilder
      * Create the SpaceEx bind that models a specified Simulink (Sub)System 
      * in a specified SpaceEx Network.
      * 
+     * @param index
+     * 				Is the index of the Simulink (Sub)System.
      * @param sys
      * 				Is the Simulink (Sub)System to add to the Network Component as bind.
      * @param net
@@ -482,7 +510,7 @@ public class SXBuilder
      * 				True stay for the NetComponent that models the main System 
      * 
      */
-	private void createBinds(SLSystem sys, SxComponentNetwork net, boolean mainSys)
+	private void createBinds(int index, SLSystem sys, SxComponentNetwork net, boolean mainSys)
 	{		
 	
 		SxBind bind;
@@ -499,13 +527,10 @@ public class SXBuilder
 			// ??? New for Goto/From New Version
 			if (!block.isInPort() && !block.isOutPort())
 			{
+				// The Network Component of the SubSystem (see createNetworkComponent)
 				if (block.isSubSys())
-					compName = block.getName();
-				// If is a Default or Constant or Gain Block, check whether was yet created
-				else if ((block.isDefault() || block.isConstant() || block.isGain()) && !sxData.isMirrorBlockOn())
-					compName = block.getType();
-				// If is a nonDefault block and also is not a Constant or Gain Type
-				// add the SubSystem owner name before block name
+					compName = networks.get(sxData.indexOf(index, block.getName()));
+				// The Base Component used by the Block (see addBlock)
 				else
 					compName = block.getExtType();				
 				// Create the bind with the position, the dimension and the note (if it is the case)
@@ -517,8 +542,8 @@ public class SXBuilder
 				System.out.println("Bind " + this.sx.getComponent(compName) + " (mapping  " + block.getName() + ") To " + sys.getName() + "...DONE.");
 				
 				bind = Factory.creatBind(net, this.sx.getComponent(compName), block.getName());
-				bind.setPosition(Integer.parseInt(block.getX1Pos()), Integer.parseInt(block.getY1Pos()));
-				bind.setDimension(Integer.parseInt(block.getWidth()), Integer.parseInt(block.getHeight()));			
+				bind.setPosition(block.getX(), block.getY());
+				bind.setDimension(block.getW(), block.getH());			
 				
 				// Add note-info on the Bind
 				if (!block.isSupported())					
@@ -528,7 +553,7 @@ public class SXBuilder
 					bind.setNote("This SX Component is used to model <<" + block.getType() + ">> SL Block Type");				
 				
 				// Once created the bind, create the mapping among the bind parameters
-				createMapping(sys, block, bind);
+				createMapping(index, sys, block, bind);
 			}
 		}
 		// Add the Global Clock to the Main System
@@ -540,9 +565,204 @@ public class SXBuilder
 		}
 	}
 	
+	// With the streaming backend, release a written Network Component and the Base Components
+	// used only by its binds: the Network Component is replaced by a copy of its Parameters,
+	// that is all the binds of the parent System need
+	private void release(SLSystem sys, SxComponentNetwork net)
+	{
+		ArrayList<SxParam> params = new ArrayList<SxParam>(net.getParams());
+		Element element = new Element(net.getElement().getName(), net.getElement().getNamespace());
+		element.setAttribute("id", net.getId());
+		sx.remove(net);
+		releaseBaseComponents(sys);
+		SxComponentNetwork template = sx.attachComponentNetwork(new SxComponentNetwork(sx, element));
+		for (SxParam param : params)
+			template.addParsedParam(new SxParam((Element) param.getElement().clone(), template));
+	}
+	
+	// With the streaming backend, release the Base Components whose last binds are the ones
+	// of the Blocks of a (Sub)System
+	private void releaseBaseComponents(SLSystem sys)
+	{
+		for (SLBlock block : sys.getBlocksList().values())
+		{
+			Integer binds = pendingBinds.get(block.getExtType());
+			if (block.isSubSys() || block.isInPort() || block.isOutPort() || binds == null)
+				continue;
+			// The Base Component is still used by the other Blocks with the same structure
+			if (binds > 1)
+				pendingBinds.put(block.getExtType(), binds - 1);
+			else
+			{
+				pendingBinds.remove(block.getExtType());
+				sx.remove(sx.getComponent(block.getExtType()));
+			}
+		}
+	}
+	
+	// A name not yet used by a component of the Model: the given one, or followed by
+	// the first free number (from 2)
+	private String uniqueName(String name)
+	{
+		String unique = name;
+		for (int i=2; names.contains(unique); i++)
+			unique = name + i;
+		names.add(unique);
+		return unique;
+	}
+	
+	// Build the Base Component of a Block in the scratch Model: return its element, detached
+	// from the scratch Model (the component is named "signature")
+	private Element build(Scratch scratch, SLBlock block)
+	{
+		SxComponentBase basic = createBaseComponent(scratch.sx, block, "signature");
+		// Removing the component empties its element
+		Element element = (Element) basic.getElement().clone();
+		scratch.sx.remove(basic);
+		return element;
+	}
+	
+	// Structural signature of the Base Component of a Block: the content of the component
+	// (without its name)
+	private static String signature(Scratch scratch, SLBlock block, Element element)
+	{
+		return block.getType() + "\n" + scratch.outputter.outputString(element.getContent());
+	}
+	
+	// Attach a Base Component built in a scratch Model to the SpaceEx Model, with its name
+	private SxComponentBase attachBaseComponent(Element element, String name)
+	{
+		element.setAttribute("id", name);
+		SxComponentBase basic = sx.attachComponentBase(new SxComponentBase(sx, element));
+		// The Parameters are not parsed with the element
+		for (Object param : element.getChildren("param", element.getNamespace()))
+			basic.addParsedParam(new SxParam((Element) param, basic));
+		return basic;
+	}
+	
+	// Create the Base Components of all the Blocks: the components are built and their
+	// signatures computed on the pool, then they are attached in the order of the serial translation
+	private void addBlocks()
+	{
+		ArrayList<SLSystem> owners = new ArrayList<SLSystem>();
+		ArrayList<SLBlock> blocks = new ArrayList<SLBlock>();
+		for (int i=sxData.getSysNum()-1; i>=0; i--)
+		{
+			SLSystem sys = sxData.getSys(i);
+			for (SLBlock block : sys.getBlocksList().values())
+				if (!block.isSubSys() && !block.isInPort() && !block.isOutPort())
+				{
+					owners.add(sys);
+					blocks.add(block);
+				}
+		}
+		SLBlock[] array = blocks.toArray(new SLBlock[blocks.size()]);
+		String[] signatures = new String[array.length];
+		Element[] elements = new Element[array.length];
+		pool.invoke(new Signatures(array, signatures, elements, 0, array.length));
+		for (int i=0; i<array.length; i++)
+		{
+			addBlock(owners.get(i), array[i], signatures[i], elements[i]);
+			elements[i] = null;
+		}
+	}
+	
+	// Take a SpaceEx Model released by a previous translation, or create it
+	private static SxSspaceex takeModel()
+	{
+		SxSspaceex sx = models.poll();
+		return (sx != null) ? sx : newModel(new File("SX_model.xml"));
+	}
+	
+	// Take a scratch Model for the signatures
+	private static Scratch takeScratch()
+	{
+		Scratch scratch = scratches.poll();
+		return (scratch != null) ? scratch : new Scratch(newModel(new File("SX_signature.xml")));
+	}
+	
+	// Release the SpaceEx Model once written (or given up), emptied for the next translation,
+	// and the scratch Model
+	private void releaseModel()
+	{
+		if (sx == null)
+			return;
+		// The Network Components (at the end) before the Base Components they bind
+		for (int i=sx.getComponentCount()-1; i>=0; i--)
+			sx.remove(sx.getComponent(i));
+		models.offer(sx);
+		sx = null;
+		if (scratch != null)
+			scratches.offer(scratch);
+		scratch = null;
+	}
+	
+	// Create a SpaceEx Model (the spaceex_moe Models are registered in a static list, that is
+	// not thread safe: the concurrent translations and the tasks of the pool must not race)
+	private static synchronized SxSspaceex newModel(File file)
+	{
+		return Factory.creatSspaceex(file);
+	}
+	
+	// Structural signature of the Network Component of a (Sub)System: the hash of all that
+	// the component is built from (Ports, Blocks, Variables and Links), but the name of the
+	// (Sub)System. The SubSystems are identified by the signature of their Network Component.
+	private String signature(int index, SLSystem sys, boolean mainSys)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeBoolean(mainSys);
+			out.writeBoolean(sys.isBlockMirror());
+			out.writeInt(sys.getInPortNum());
+			for (int i=0; i<sys.getInPortNum(); i++)
+				SXDataCache.writeString(out, sys.getInPort(i));
+			out.writeInt(sys.getOutPortNum());
+			for (int i=0; i<sys.getOutPortNum(); i++)
+				SXDataCache.writeString(out, sys.getOutPort(i));
+			for (SLBlock block : sys.getBlocksList().values())
+			{
+				block.write(out);
+				if (block.isSubSys())
+					SXDataCache.writeString(out, sysSignatures.get(sxData.indexOf(index, block.getName())));
+			}
+			sys.getGraph().write(out);
+			out.close();
+		}
+		catch (IOException e)
+		{
+			// Not thrown by a ByteArrayOutputStream
+			throw new IllegalStateException(e);
+		}
+		return SXDataCache.hash(bytes.toByteArray());
+	}
+	
+	// With the streaming backend, write a complete Base Component
+	private void write(SxComponentBase basic)
+	{
+		try
+		{
+			writer.write(basic, 1);
+		}
+		catch (IOException e)
+		{
+			writeFailed(e);
+		}
+	}
+	
+	// Stop on an error of the output (file or stream of the caller): the error is thrown
+	// up to the caller of the translation (the command line versions stop)
+	private void writeFailed(IOException e)
+	{
+		throw new UncheckedIOException(e);
+	}
+	
 	 /**
      * Create a SpaceEx mapping among variables, and add the graphical shape of the link.
      * 
+     * @param index
+     * 				Is the index of the Simulink (Sub)System.
      * @param sys
      * 				Is the Simulink (Sub)System where the mapping is defined.
      * @param block
@@ -551,11 +771,13 @@ public class SXBuilder
      * 				Is the SpaceEx bind where the mapping is created.
      * 
      */
-	private void createMapping(SLSystem sys, SLBlock block, SxBind bind)
+	private void createMapping(int index, SLSystem sys, SLBlock block, SxBind bind)
 	{
-		String key = new String();
+		int var;
 		String key1 = new String();
 		String map = new String();
+		SymbolTable symbols = sxData.getSymbols();
+		SignalGraph graph = sys.getGraph();
 		
 		int inPortsNum = 0;
 		int outPortsNum = 0;
@@ -563,36 +785,36 @@ public class SXBuilder
 		// If the block is a SubSystem, add the Mapping for the In/Out Ports
 		if (block.isSubSys())
 		{
-			SLSystem actSys = sxData.getSys(sxData.indexOf(block.getName()));
+			SLSystem actSys = sxData.getSys(sxData.indexOf(index, block.getName()));
 			inPortsNum = actSys.getInPortNum();
 			outPortsNum = actSys.getOutPortNum();
 			
 			// InPorts Mapping
 			for (int i=0; i<inPortsNum; i++)
 			{
-				key = block.getName() + "In" + (i+1);
+				var = graph.nodeOf(symbols.inPortVar(block.getId(), i+1));
 				key1 = actSys.getInPort(i);
-				map = sys.getVariablesList().get(key).getMap();
+				map = symbols.getName(graph.getMap(var));
 				
 				// Add the mapping
 				SxMap m = bind.getMap(key1).setIsASymbolMap(true).setLinkValid(map);
 				// Add the link, if it is present
-				if (!sys.getVariablesList().get(key).getLink().equals(""))
-					m.setMapLink(sys.getVariablesList().get(key).getLink());
+				if (graph.getPolyline(var) != null)
+					m.setMapLink(graph.getPolyline(var).toString());
 				
 			}
 			// OutPorts Mapping
 			for (int i=0; i<outPortsNum; i++)
 			{
-				key = block.getName() + "Out" + (i+1);
+				var = graph.nodeOf(symbols.outPortVar(block.getId(), i+1));
 				key1 = actSys.getOutPort(i);
-				map = sys.getVariablesList().get(key).getMap();
+				map = symbols.getName(graph.getMap(var));
 				
 				// Add the mapping
 				SxMap m = bind.getMap(key1).setIsASymbolMap(true).setLinkValid(map);
 				// Add the link, if it is present				
-				if (!sys.getVariablesList().get(key).getLink().equals(""))
-					m.setMapLink(sys.getVariablesList().get(key).getLink());
+				if (graph.getPolyline(var) != null)
+					m.setMapLink(graph.getPolyline(var).toString());
 			}
 		}
 		// For Input or Output variables
@@ -604,14 +826,14 @@ public class SXBuilder
 			// Input Variables Mapping
 			for (int i=0; i<inPortsNum; i++)
 			{
-				key = block.getName() + "In" + (i+1);
-				map = sys.getVariablesList().get(key).getMap();
+				var = graph.nodeOf(symbols.inPortVar(block.getId(), i+1));
+				map = symbols.getName(graph.getMap(var));
 				
 				// Add the mapping
-				SxMap m = bind.getMap("In" + (i+1)).setIsASymbolMap(true).setLinkValid(map);
+				SxMap m = bind.getMap(symbols.inName(i+1)).setIsASymbolMap(true).setLinkValid(map);
 				// Add the link, if it is present
-				if (!sys.getVariablesList().get(key).getLink().equals(""))
-					m.setMapLink(sys.getVariablesList().get(key).getLink());
+				if (graph.getPolyline(var) != null)
+					m.setMapLink(graph.getPolyline(var).toString());
 				// ?????? Future: wireless signal
 				//if (block.isFrom() || block.isGoto())
 					//m.setMapLink.setHide();
@@ -619,43 +841,41 @@ public class SXBuilder
 			// Output Variables Mapping
 			for (int i=0; i<outPortsNum; i++)
 			{
-				key = block.getName() + "Out" + (i+1);
-				map = sys.getVariablesList().get(key).getMap();
+				var = graph.nodeOf(symbols.outPortVar(block.getId(), i+1));
+				map = symbols.getName(graph.getMap(var));
 				
 				// Add the mapping
-				SxMap m = bind.getMap("Out" + (i+1)).setIsASymbolMap(true).setLinkValid(map);
+				SxMap m = bind.getMap(symbols.outName(i+1)).setIsASymbolMap(true).setLinkValid(map);
 				// Add the link, if it is present
-				if (!sys.getVariablesList().get(key).getLink().equals(""))
-					m.setMapLink(sys.getVariablesList().get(key).getLink());
+				if (graph.getPolyline(var) != null)
+					m.setMapLink(graph.getPolyline(var).toString());
 				// ?????? Future: wireless signal
 				//if (block.isFrom() || block.isGoto())
 					//m.setMapLink.setHide();
 			}
 			
-			// Add the mapping to VALUES (for Constant, Gain and Saturate)
-			SxMap mVal;			
-			if (block.isConstant())
-				mVal = bind.getMap("K").setIsASymbolMap(true).setLinkValid(block.getValue());
-			else if (block.isGain())
-				mVal = bind.getMap("Gain").setIsASymbolMap(true).setLinkValid(block.getGain());
-			else if (block.isSaturate())
-			{
-				mVal = bind.getMap("uL").setIsASymbolMap(true).setLinkValid(block.getUpperLimit());
-				mVal = bind.getMap("lL").setIsASymbolMap(true).setLinkValid(block.getLowerLimit());
-			}
+			// Add the mapping to VALUES (i.e. for Constant, Gain and Saturate)
+			block.getTranslator().createValueMapping(block, bind);
 		}		
 	}
 	
 	/**
      * Build the Corresponding SpaceEx Model Configuration
+     * 
+     * @throws UncheckedIOException
+     * 				If the Configuration can not be written.
      */
 	public void extractSXModelConfiguration()
 	{
 		 try 
 		 {
 			 // False in order to append
-			 PrintWriter Output =
-					 		new PrintWriter(new BufferedWriter(new FileWriter("SX_" + sxData.getFileName() + ".cfg", false)));
+			 PrintWriter Output;
+			 if (configOut == null)
+				 Output = new PrintWriter(new BufferedWriter(new FileWriter("SX_" + sxData.getFileName() + ".cfg", false)));
+			 else
+				 // Same encoding as the FileWriter
+				 Output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(configOut, Charset.defaultCharset())));
 			 Output.println("system = " + sxData.getName());
 		//	 Output.println("initially = \"t==" + sxData.getStartTime() + " & " + sxData.getInitStates() + "\"");
 			 Output.println("initially = \"t==" + sxData.getStartTime() + "\"");
@@ -692,12 +912,76 @@ public class SXBuilder
 			 //Output.println("rel-err = 1.0E-9");
 			 //Output.println("abs-err = 1.0E-12");
 
-			 Output.close();
+			 if (configOut == null)
+				 Output.close();
+			 else
+				 Output.flush();
+			 // The PrintWriter does not throw its errors
+			 if (Output.checkError())
+				 throw new IOException("SX_" + sxData.getFileName() + ".cfg: write error");
 		 }
 		 catch (IOException e) 
 		 {
-			 System.out.println("Error: " + e);
-			 System.exit(1);
+			 writeFailed(e);
 		 }		
 	}
+	
+	// ----------------------------->> Signature Tasks
+	
+	// Model where the Base Components are built to compute their signatures, and outputter
+	// of the signatures (the content of a component, without layout). Used by one thread at a time.
+	private static class Scratch
+	{
+		private final SxSspaceex sx;
+		private final XMLOutputter outputter = new XMLOutputter(Format.getCompactFormat());
+		
+		Scratch(SxSspaceex sx)
+		{
+			this.sx = sx;
+		}
+	}
+	
+	// Task that builds the Base Components of a range of Blocks and computes their signatures
+	private class Signatures extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final SLBlock[] blocks;
+		private final String[] signatures;
+		private final Element[] elements;
+		private final int from;
+		private final int to;
+		
+		Signatures(SLBlock[] blocks, String[] signatures, Element[] elements, int from, int to)
+		{
+			this.blocks = blocks;
+			this.signatures = signatures;
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected void compute()
+		{
+			if (to - from > TASK_BLOCKS)
+			{
+				int middle = (from + to) >>> 1;
+				invokeAll(new Signatures(blocks, signatures, elements, from, middle), new Signatures(blocks, signatures, elements, middle, to));
+				return;
+			}
+			Scratch scratch = takeScratch();
+			try
+			{
+				for (int i=from; i<to; i++)
+				{
+					elements[i] = build(scratch, blocks[i]);
+					signatures[i] = signature(scratch, blocks[i], elements[i]);
+				}
+			}
+			finally
+			{
+				scratches.offer(scratch);
+			}
+		}
+	}
 }
@@ -1,6 +1,10 @@
 package sl2sx;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 
@@ -11,14 +15,14 @@ import java.util.*;
 public class SXData {
 	// List of all (Sub)Systems
 	private ArrayList<SLSystem> systemsList = new ArrayList<SLSystem>();
-	// Used for the Random Access to the SubSystems
-	private ArrayList<String> systemsNameList = new ArrayList<String>();
-	// ------------> Change this when new block is supported in a new version
-	// <------------------------------
-	private String strSupportedBlocks = "System SubSystem Inport Outport Constant Gain Sum Product Integrator Saturate DeadZone Logic";
-	// Goto From";
-	// ------------------------------------------------------------------------------------------------------
-	// List of all the Supported Block in the current version (do not change)
+	// Used for the Random Access to the SubSystems (built on demand, null if to rebuild):
+	// hierarchical path of each (Sub)System, e.g. "Plant/Motor/Electrical", path --> index
+	// and name --> index of the first (Sub)System with that name
+	private ArrayList<String> systemsPathList = null;
+	private HashMap<String, Integer> pathIndex = null;
+	private HashMap<String, Integer> nameIndex = null;
+	// List of all the Supported Block in the current version (given by the Block Translators,
+	// see BlockTranslators)
 	private ArrayList<String> supportedBlocks = new ArrayList<String>();
 
 	// FileName
@@ -36,8 +40,10 @@ public class SXData {
 	// Simulation Absolute Tolerance (Initialized to the default value)
 	private String absTol = new String("1.0E-12");
 
-	// List of the default blocks
-	private HashMap<String, SLBlock> dBlocksList = new HashMap<String, SLBlock>();
+	// List of the default blocks, in the order they are added
+	private LinkedHashMap<String, SLBlock> dBlocksList = new LinkedHashMap<String, SLBlock>();
+	// Block Parameter Defaults shared by the Blocks, by Block Type (also by the Blocks parsed apart)
+	private ConcurrentHashMap<String, BlockDefaults> blockDefaults = new ConcurrentHashMap<String, BlockDefaults>();
 	// Parent of Current System
 	private int next = -1;
 	// Next Insert Position
@@ -50,6 +56,8 @@ public class SXData {
 	private String initStates = new String();
 	// Output Variables
 	private String outVars = new String("t");
+	// Names of Blocks, Ports and Variables of the translation
+	private SymbolTable symbols = new SymbolTable();
 
 	/**
 	 * Default constructor. Just set the Supported Blocks in the Current SL2SX
@@ -70,7 +78,65 @@ public class SXData {
 		this.next++;
 		this.currSys = this.next;
 		this.systemsList.add(next, sys);
-		this.systemsNameList.add(next, sys.getName());
+		this.systemsPathList = null;
+		// All the Systems share the same Symbol Table
+		sys.setSymbols(this.symbols);
+	}
+
+	/**
+	 * Replace a (Sub)System with the (Sub)Systems parsed apart from the rest of the
+	 * diagram (see SLParallelParser). The root of the part takes the place of the
+	 * replaced System, the other Systems of the part follow it: the order and the
+	 * indexes are the same as if the whole diagram was parsed at once.
+	 * 
+	 * @param index
+	 *            The index of the (empty) System to replace.
+	 * @param part
+	 *            The Data Structure filled by the parsing of the System content.
+	 */
+	public void replaceSys(int index, SXData part) {
+		SLSystem old = this.systemsList.get(index);
+		int shift = part.getSysNum() - 1;
+
+		// The following Systems are shifted
+		for (int i = 0; i < this.getSysNum(); i++)
+			if (this.getSys(i).getParent() > index)
+				this.getSys(i).setParent(this.getSys(i).getParent() + shift);
+		// The root of the part inherits Name, Parent and BlockMirror of the replaced System
+		SLSystem root = part.getSys(0);
+		root.setName(old.getName());
+		root.setParent(old.getParent());
+		root.setBlockMirror(old.isBlockMirror());
+		// The Parents in the part are relative to its root
+		for (int i = 1; i < part.getSysNum(); i++)
+			part.getSys(i).setParent(part.getSys(i).getParent() + index);
+
+		this.systemsList.remove(index);
+		for (int i = 0; i < part.getSysNum(); i++)
+			this.systemsList.add(index + i, part.getSys(i));
+		this.systemsPathList = null;
+		this.next = this.systemsList.size() - 1;
+		if (part.isMirrorBlockOn())
+			this.mirrorBlockOn = true;
+	}
+
+	/**
+	 * Set the Symbol Table of the translation (to share it among several Data Structures).
+	 * 
+	 * @param symbols
+	 *            The SymbolTable that contains the names of Blocks, Ports and Variables.
+	 */
+	public void setSymbols(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Get the Symbol Table of the translation.
+	 * 
+	 * @return The SymbolTable that contains the names of Blocks, Ports and Variables.
+	 */
+	public SymbolTable getSymbols() {
+		return this.symbols;
 	}
 
 	/**
@@ -126,14 +192,57 @@ public class SXData {
 	}
 
 	/**
-	 * Get the index of the System by name.
+	 * Get the index of the System by name (the first one, if several
+	 * SubSystems have the same name in different parents).
 	 * 
 	 * @param name
 	 *            Is the name of the system.
-	 * @return The Index-List of (Sub)System.
+	 * @return The Index-List of (Sub)System, -1 if not present.
 	 */
 	public int indexOf(String name) {
-		return this.systemsNameList.indexOf(name);
+		buildIndex();
+		Integer index = this.nameIndex.get(name);
+		return (index == null) ? -1 : index;
+	}
+
+	/**
+	 * Get the index of a SubSystem by parent and name.
+	 * 
+	 * @param parent
+	 *            Is the index of the parent system.
+	 * @param name
+	 *            Is the name of the SubSystem.
+	 * @return The Index-List of the SubSystem, -1 if not present.
+	 */
+	public int indexOf(int parent, String name) {
+		return indexOfPath(getPath(parent) + "/" + escape(name));
+	}
+
+	/**
+	 * Get the index of the System by hierarchical path.
+	 * 
+	 * @param path
+	 *            Is the path of the system: the names of the Main System and
+	 *            of the SubSystems that contain it, separated by "/" (a "/"
+	 *            in a name is doubled), e.g. "Plant/Motor/Electrical".
+	 * @return The Index-List of (Sub)System, -1 if not present.
+	 */
+	public int indexOfPath(String path) {
+		buildIndex();
+		Integer index = this.pathIndex.get(path);
+		return (index == null) ? -1 : index;
+	}
+
+	/**
+	 * Get the hierarchical path of the System by index.
+	 * 
+	 * @param i
+	 *            Is the index of the system.
+	 * @return The path of the (Sub)System, e.g. "Plant/Motor/Electrical".
+	 */
+	public String getPath(int i) {
+		buildIndex();
+		return this.systemsPathList.get(i);
 	}
 
 	/**
@@ -173,15 +282,48 @@ public class SXData {
 	public void addDBlock(SLBlock block) {
 		this.dBlocksList.put(block.getName(), block);
 		this.dBlockNum++;
+		// The Blocks of the Type inherit the Defaults from now on
+		getBlockDefaults(block.getName()).setBlock(block);
+	}
+
+	/**
+	 * Get the Block Parameter Defaults of a Block Type, shared by all the
+	 * Blocks of the Type (they are empty until the Default Block is added).
+	 * 
+	 * @param type
+	 *            The Block Type.
+	 * @return The BlockDefaults of the Type.
+	 */
+	public BlockDefaults getBlockDefaults(String type) {
+		BlockDefaults defaults = this.blockDefaults.get(type);
+		if (defaults == null) {
+			defaults = new BlockDefaults(type);
+			BlockDefaults old = this.blockDefaults.putIfAbsent(type, defaults);
+			if (old != null)
+				defaults = old;
+		}
+		return defaults;
+	}
+
+	/**
+	 * Share the Symbol Table and the Block Parameter Defaults of another Data
+	 * Structure (i.e. for a SubSystem parsed apart).
+	 * 
+	 * @param sxData
+	 *            The Data Structure of the whole diagram.
+	 */
+	public void share(SXData sxData) {
+		this.symbols = sxData.symbols;
+		this.blockDefaults = sxData.blockDefaults;
 	}
 
 	/**
 	 * Get the list of Default Parameters Values.
 	 * 
-	 * @return An HashMap that contains the list of the Default Parameters for
-	 *         each Block Type.
+	 * @return A LinkedHashMap that contains the list of the Default Parameters
+	 *         for each Block Type, in the order they were added.
 	 */
-	public HashMap<String, SLBlock> getDBlocksList() {
+	public LinkedHashMap<String, SLBlock> getDBlocksList() {
 		return this.dBlocksList;
 	}
 
@@ -375,26 +517,34 @@ public class SXData {
 
 	/**
 	 * Post Processing of the entire Data Structure. To be used only AFTER the
-	 * Simulink Source File is all processed. First Step: Derive the Value of
-	 * the Default Blocks. Second Step: Compute the Connections among Blocks.
-	 * Third Step: Normalize the Variables.
+	 * Simulink Source File is all processed. The Blocks read the Values of the
+	 * Default Blocks through their BlockDefaults, so just: First Step: Compute the
+	 * Connections among Blocks. Second Step: Normalize the Variables.
 	 */
 	public void postProcess() {
+		postProcessConnections();
+	}
+
+	/**
+	 * Let a Block inherit the Default Parameters of its Type (see
+	 * SLBlock.setDefaults): it reads them as long as it has no Parameter of its own.
+	 * 
+	 * @param block
+	 *            Simulink Block.
+	 */
+	public void applyDefaults(SLBlock block) {
+		block.setDefaults(getBlockDefaults(block.getType()));
+	}
+
+	/**
+	 * Post Processing of the Connections only: the Values of the Default Blocks
+	 * must be yet derived (see applyDefaults). First Step: Compute the
+	 * Connections among Blocks. Second Step: Normalize the Variables.
+	 */
+	public void postProcessConnections() {
 		// Loop on the (Sub)Systems
 		for (int i = 0; i < this.getSysNum(); i++) {
 			SLSystem sys = this.getSys(i);
-			Iterator itSys = sys.getBlocksList().entrySet().iterator();
-
-			// Get Default Blocks Values
-			while (itSys.hasNext()) {
-				Map.Entry entry = (Map.Entry) itSys.next();
-				String key = (String) entry.getKey();
-				SLBlock block = (SLBlock) entry.getValue();
-				// Set Value of the Default Blocks
-				if (block.isDefault() && this.getDBlocksList().get(block.getType()) != null)
-					sys.getBlocksList().get(block.getName())
-							.copy(this.getDBlocksList().get(block.getType()));
-			}
 			// ********************************* Prototype
 			
 			// Compute Links (on not normalized Variables)
@@ -409,22 +559,97 @@ public class SXData {
 		computeInitStates();
 	}
 
+	/**
+	 * Write the post processed Data Structure on a binary stream (see
+	 * SXDataCache).
+	 * 
+	 * @param out
+	 *            The stream.
+	 */
+	void write(DataOutputStream out) throws IOException {
+		SXDataCache.writeString(out, this.fileName);
+		SXDataCache.writeString(out, this.mainName);
+		SXDataCache.writeString(out, this.startTime);
+		SXDataCache.writeString(out, this.stopTime);
+		SXDataCache.writeString(out, this.maxStep);
+		SXDataCache.writeString(out, this.relTol);
+		SXDataCache.writeString(out, this.absTol);
+		out.writeBoolean(this.mirrorBlockOn);
+		out.writeInt(this.dBlockNum);
+		SXDataCache.writeString(out, this.initStates);
+		SXDataCache.writeString(out, this.outVars);
+		this.symbols.write(out);
+		out.writeInt(this.getSysNum());
+		for (int i = 0; i < this.getSysNum(); i++)
+			this.getSys(i).write(out);
+	}
+
+	/**
+	 * Read a Data Structure written by write: it is ready for the SXBuilder.
+	 * 
+	 * @param in
+	 *            The stream.
+	 * @return The post processed Data Structure.
+	 */
+	static SXData read(DataInputStream in) throws IOException {
+		SXData sxData = new SXData();
+		sxData.fileName = SXDataCache.readString(in);
+		sxData.mainName = SXDataCache.readString(in);
+		sxData.startTime = SXDataCache.readString(in);
+		sxData.stopTime = SXDataCache.readString(in);
+		sxData.maxStep = SXDataCache.readString(in);
+		sxData.relTol = SXDataCache.readString(in);
+		sxData.absTol = SXDataCache.readString(in);
+		sxData.mirrorBlockOn = in.readBoolean();
+		sxData.dBlockNum = in.readInt();
+		sxData.initStates = SXDataCache.readString(in);
+		sxData.outVars = SXDataCache.readString(in);
+		sxData.symbols = SymbolTable.read(in);
+		int systems = in.readInt();
+		for (int i = 0; i < systems; i++)
+			sxData.systemsList.add(SLSystem.read(in, sxData.symbols));
+		sxData.next = systems - 1;
+		sxData.currSys = systems - 1;
+		return sxData;
+	}
+
 	// --------------------------->> Private Methods
 
+	// Build the paths and the indexes of the Systems (if changed since the last time)
+	private void buildIndex() {
+		if (this.systemsPathList != null)
+			return;
+		this.systemsPathList = new ArrayList<String>(this.getSysNum());
+		this.pathIndex = new HashMap<String, Integer>();
+		this.nameIndex = new HashMap<String, Integer>();
+		for (int i = 0; i < this.getSysNum(); i++) {
+			SLSystem sys = this.getSys(i);
+			// The parents precede their SubSystems
+			String path = escape(sys.getName());
+			if (i > 0)
+				path = this.systemsPathList.get(sys.getParent()) + "/" + path;
+			this.systemsPathList.add(path);
+			if (!this.pathIndex.containsKey(path))
+				this.pathIndex.put(path, i);
+			if (!this.nameIndex.containsKey(sys.getName()))
+				this.nameIndex.put(sys.getName(), i);
+		}
+	}
+
+	// Escape a name for a path (as in Simulink, a "/" in a name is doubled)
+	private static String escape(String name) {
+		return name.replace("/", "//");
+	}
+
 	// Computes Global Output Variables
 	private void computeOutVars(SLSystem sys) {
-		Iterator itVars = sys.getVariablesList().entrySet().iterator();
+		SignalGraph graph = sys.getGraph();
 		// For each single variable
-		while (itVars.hasNext()) {
-			Map.Entry entry = (Map.Entry) itVars.next();
-
-			String varName = (String) entry.getKey();
-			Variable var = (Variable) entry.getValue();
-
-			if (var.isOutPort())
-				this.addOutVar(varName);
-			if (var.isScope())
-				this.addOutVar(var.getMap());
+		for (int var = 0; var < graph.size(); var++) {
+			if (graph.is(var, SignalGraph.OUTPORT))
+				this.addOutVar(symbols.getName(graph.getName(var)));
+			if (graph.is(var, SignalGraph.SCOPE))
+				this.addOutVar(symbols.getName(graph.getMap(var)));
 		}
 	}
 
@@ -478,21 +703,9 @@ public class SXData {
 
 	// Initialize the DS that contains the supported blocks
 	private void setSupportedBlocks() {
-		int start = 0;
-		int end = strSupportedBlocks.indexOf(" ");
-		String blockType = new String();
-
-		// Just scan the String that contains the supported blocks, and fill an
-		// ArrayList
-		while (end != -1) {
-			blockType = strSupportedBlocks.substring(start, end);
-			supportedBlocks.add(blockType);
-			start = end + 1;
-			end = strSupportedBlocks.indexOf(" ", start);
-		}
-		blockType = strSupportedBlocks.substring(start,
-				strSupportedBlocks.length());
-		supportedBlocks.add(blockType);
+		// The Main System, then the Block Types with a supported translator
+		supportedBlocks.add("System");
+		supportedBlocks.addAll(BlockTranslators.getSupportedTypes());
 	}
 
 	// Show the List of the Blocks Supported in the Current Version
@@ -0,0 +1,238 @@
+package sl2sx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ *
+ * Persistent cache of the post processed Data Structure (SXData), so that a Diagram that
+ * did not change is translated without being parsed again. An entry is keyed by the hash
+ * of the content of the Simulink file, of the SL2SX version and of the registered Block
+ * Translators: a new version (or a plugged translator) never reads an old entry.
+ * The entries are binary files in the cache directory (the system property sl2sx.cache.dir,
+ * by default ~/.sl2sx/cache). A missing or corrupted entry is just a miss.
+ */
+public final class SXDataCache {
+
+	// SL2SX version: change this when the Data Structure or the Post Processing change
+	public static final String VERSION = "1.0";
+	// Header of a cache entry
+	private static final int MAGIC = 0x534c3258;
+	private static final int FORMAT = 1;
+
+	// Directory of the entries
+	private final File dir;
+
+	 /**
+     * Default constructor: the cache directory is given by the system property
+     * sl2sx.cache.dir (by default ~/.sl2sx/cache).
+     */
+	public SXDataCache()
+	{
+		this(new File(System.getProperty("sl2sx.cache.dir",
+				System.getProperty("user.home") + File.separator + ".sl2sx" + File.separator + "cache")));
+	}
+
+	 /**
+     * Cache in the given directory (created when the first entry is stored).
+     *
+     * @param dir
+     * 				The cache directory.
+     */
+	public SXDataCache(File dir)
+	{
+		this.dir = dir;
+	}
+
+	 /**
+     * Compute the key of a Simulink file.
+     *
+     * @param fileName
+     * 				The Simulink Diagram File.
+     * @return The key of the entry of the file (hex SHA-256).
+     */
+	public String key(String fileName) throws IOException
+	{
+		MessageDigest digest = newDigest();
+		InputStream in = new FileInputStream(fileName);
+		try
+		{
+			byte[] buffer = new byte[1 << 16];
+			int n;
+			while ((n = in.read(buffer)) > 0)
+				digest.update(buffer, 0, n);
+		}
+		finally
+		{
+			in.close();
+		}
+		digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+		// The translators define the supported Blocks and their ports
+		for (String type : BlockTranslators.getTypes())
+		{
+			digest.update(type.getBytes(StandardCharsets.UTF_8));
+			digest.update(BlockTranslators.get(type).getClass().getName().getBytes(StandardCharsets.UTF_8));
+		}
+		return toHex(digest.digest());
+	}
+
+	 /**
+     * Load an entry.
+     *
+     * @param key
+     * 				The key of the entry (see key).
+     * @return The post processed Data Structure, null if the entry is missing or corrupted.
+     */
+	public SXData load(String key)
+	{
+		File file = entry(key);
+		if (!file.isFile())
+			return null;
+		try
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+			try
+			{
+				if (in.readInt() != MAGIC || in.readInt() != FORMAT || !VERSION.equals(readString(in)))
+					return null;
+				return SXData.read(in);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	 /**
+     * Store an entry. The entry is written on a temporary file that is then renamed,
+     * so that a concurrent load never reads a partial entry.
+     *
+     * @param key
+     * 				The key of the entry (see key).
+     * @param sxData
+     * 				The post processed Data Structure.
+     */
+	public void store(String key, SXData sxData) throws IOException
+	{
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Cannot create the cache directory " + dir);
+		File tmp = File.createTempFile(key, ".tmp", dir);
+		try
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+			try
+			{
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				writeString(out, VERSION);
+				sxData.write(out);
+			}
+			finally
+			{
+				out.close();
+			}
+			File file = entry(key);
+			if (!tmp.renameTo(file))
+			{
+				file.delete();
+				if (!tmp.renameTo(file))
+					throw new IOException("Cannot write the cache entry " + file);
+			}
+		}
+		finally
+		{
+			tmp.delete();
+		}
+	}
+
+	 /**
+     * Hash a content, as the keys of the entries.
+     *
+     * @param content
+     * 				The bytes to hash.
+     * @return The hex SHA-256 of the content.
+     */
+	static String hash(byte[] content)
+	{
+		return toHex(newDigest().digest(content));
+	}
+
+	 /**
+     * Write a String (null allowed). Unlike writeUTF, there is no limit on the length.
+     *
+     * @param out
+     * 				The stream.
+     * @param s
+     * 				The String to write.
+     */
+	static void writeString(DataOutputStream out, String s) throws IOException
+	{
+		if (s == null)
+		{
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	 /**
+     * Read a String written by writeString.
+     *
+     * @param in
+     * 				The stream.
+     * @return The String (may be null).
+     */
+	static String readString(DataInputStream in) throws IOException
+	{
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// ----------------------------->> Private Methods
+
+	private File entry(String key)
+	{
+		return new File(dir, key + ".sxd");
+	}
+
+	private static String toHex(byte[] digest)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest)
+			sb.append(String.format("%02x", b));
+		return sb.toString();
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -121,12 +121,10 @@ public class SXDebug {
 	{	
 		System.out.println("****" + sys.getName()  + " Variables List: BEGIN ****");
 		
-		Iterator itVars = sys.getVariablesList().entrySet().iterator();
-		while (itVars.hasNext()) 
+		SignalGraph graph = sys.getGraph();
+		for (int node=0; node<graph.size(); node++) 
 		{
-			Map.Entry entry = (Map.Entry) itVars.next();
-			String key = (String)entry.getKey();
-			Variable var = (Variable)entry.getValue();
+			Variable var = graph.getVar(node);
 			System.out.println("Var Name: " + var.getName());
 			System.out.println("Mapped to: " + var.getMap());
 			System.out.println("Position: " + var.getXPos() + ", " + var.getYPos());
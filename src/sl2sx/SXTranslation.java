@@ -0,0 +1,173 @@
+package sl2sx;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ *
+ * In-memory translation of a Simulink Diagram: the SpaceEx Model and its Configuration
+ * are returned as byte arrays (or written on the streams of the caller), instead of the
+ * files SX_name.xml and SX_name.cfg of the working directory. Nothing is written on disk,
+ * so that several translations can run concurrently.
+ * The bytes are the same as the ones of the files written by the usual translation.
+ */
+public final class SXTranslation {
+
+	// Name of the Simulink Model (the files would be SX_name.xml and SX_name.cfg)
+	private final String name;
+	// SpaceEx Model (.xml) and Configuration (.cfg)
+	private final byte[] model;
+	private final byte[] config;
+
+	private SXTranslation(String name, byte[] model, byte[] config)
+	{
+		this.name = name;
+		this.model = model;
+		this.config = config;
+	}
+
+	 /**
+     * Translate a Simulink .xml Stream (StAX front end).
+     *
+     * @param in
+     * 				The Stream that contains the Simulink Diagram in .xml Format (not closed).
+     * @return The translation.
+     */
+	public static SXTranslation translate(InputStream in) throws XMLStreamException, IOException
+	{
+		ByteArrayOutputStream model = new ByteArrayOutputStream();
+		ByteArrayOutputStream config = new ByteArrayOutputStream();
+		String name = translate(in, model, config);
+		return new SXTranslation(name, model.toByteArray(), config.toByteArray());
+	}
+
+	 /**
+     * Translate the content of a Simulink .xml File (the bytes are scanned directly,
+     * as by the mapped front end).
+     *
+     * @param content
+     * 				The bytes of the Simulink .xml File.
+     * @return The translation.
+     */
+	public static SXTranslation translate(byte[] content) throws IOException
+	{
+		ByteArrayOutputStream model = new ByteArrayOutputStream();
+		ByteArrayOutputStream config = new ByteArrayOutputStream();
+		SLContentHandler handler = newHandler(model, config);
+		new SLMappedParser(handler).parse(ByteBuffer.wrap(content));
+		return new SXTranslation(handler.getSXData().getName(), model.toByteArray(), config.toByteArray());
+	}
+
+	 /**
+     * Translate a Simulink File (.xml, .slx or .mdl, by extension).
+     *
+     * @param path
+     * 				Path of the Simulink File.
+     * @return The translation.
+     */
+	public static SXTranslation translate(Path path) throws XMLStreamException, IOException
+	{
+		ByteArrayOutputStream model = new ByteArrayOutputStream();
+		ByteArrayOutputStream config = new ByteArrayOutputStream();
+		SLContentHandler handler = newHandler(model, config);
+		String fileName = path.toString();
+		if (SLStreamParser.isSlx(fileName))
+			new SLStreamParser(handler).parseSlx(fileName);
+		else if (SLMdlParser.isMdl(fileName))
+			new SLMdlParser(handler).parse(fileName);
+		else
+			new SLMappedParser(handler).parse(fileName);
+		return new SXTranslation(handler.getSXData().getName(), model.toByteArray(), config.toByteArray());
+	}
+
+	 /**
+     * Translate a Simulink .xml Stream on the streams of the caller (i.e. to pipe the
+     * SpaceEx Model to another tool). The streams are flushed, not closed.
+     *
+     * @param in
+     * 				The Stream that contains the Simulink Diagram in .xml Format (not closed).
+     * @param model
+     * 				The stream of the SpaceEx Model (.xml).
+     * @param config
+     * 				The stream of the SpaceEx Model Configuration (.cfg).
+     * @return The name of the Simulink Model.
+     * @throws IOException
+     * 				If the SpaceEx Model or its Configuration can not be written on the streams.
+     */
+	public static String translate(InputStream in, OutputStream model, OutputStream config) throws XMLStreamException, IOException
+	{
+		SLContentHandler handler = newHandler(model, config);
+		try
+		{
+			new SLStreamParser(handler).parse(in);
+		}
+		catch (UncheckedIOException e)
+		{
+			// Error of the streams of the caller (see SXBuilder)
+			throw e.getCause();
+		}
+		return handler.getSXData().getName();
+	}
+
+	/**
+     * Get the name of the Simulink Model.
+     * @return A String that is the Model name (the files would be SX_name.xml and SX_name.cfg).
+     */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+     * Get the SpaceEx Model.
+     * @return The bytes of the .xml SpaceEx Model.
+     */
+	public byte[] getModel()
+	{
+		return this.model;
+	}
+
+	/**
+     * Get the SpaceEx Model Configuration.
+     * @return The bytes of the .cfg SpaceEx Model Configuration.
+     */
+	public byte[] getConfig()
+	{
+		return this.config;
+	}
+
+	/**
+     * Read the SpaceEx Model.
+     * @return A Stream on the bytes of the .xml SpaceEx Model.
+     */
+	public InputStream openModel()
+	{
+		return new ByteArrayInputStream(this.model);
+	}
+
+	/**
+     * Read the SpaceEx Model Configuration.
+     * @return A Stream on the bytes of the .cfg SpaceEx Model Configuration.
+     */
+	public InputStream openConfig()
+	{
+		return new ByteArrayInputStream(this.config);
+	}
+
+	// ----------------------------->> Private Methods
+
+	private static SLContentHandler newHandler(OutputStream model, OutputStream config)
+	{
+		SLContentHandler handler = new SLContentHandler();
+		handler.setOutput(model, config);
+		return handler;
+	}
+}
@@ -0,0 +1,244 @@
+package sl2sx;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.Text;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+
+import fr.imag.verimag.spaceex_moe.sspaceex.SxElement;
+import fr.imag.verimag.spaceex_moe.sspaceex.SxSspaceex;
+
+/**
+ *
+ * Streaming writer of a SpaceEx Model: each component is written on file as soon as it
+ * is complete, instead of being kept in the JDOM Document until the Model is saved.
+ * The components are still built one by one by the spaceex_moe Factory (the Block
+ * Translators complete them), but they are never put together in a single tree.
+ * The layout and the escaping are the ones of the JDOM backend (the Format and the
+ * outputter of SxSspaceex), so that both backends write the same bytes.
+ */
+public class SXWriter {
+
+	// Outputter of the JDOM backend (a copy: it is not thread safe): its Format and its escaping are used
+	private final XMLOutputter outputter = (XMLOutputter) SxSspaceex.getXMLOutputter().clone();
+	private final Format format = outputter.getFormat();
+	private final String eol = format.getLineSeparator();
+	// The file (or the stream) of the Model
+	private final Writer out;
+	// If False, the stream is given by the caller: flushed at the end, not closed
+	private final boolean closeOut;
+	// Name of the root element (sspaceex), to be closed at the end
+	private String root;
+
+	 /**
+     * Open the file of the Model.
+     *
+     * @param file
+     * 				The SpaceEx Model File.
+     */
+	public SXWriter(File file) throws IOException
+	{
+		this.out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), format.getEncoding()), 1 << 16);
+		this.closeOut = true;
+	}
+
+	 /**
+     * Write the Model on a stream (that is not closed at the end).
+     *
+     * @param stream
+     * 				The stream of the SpaceEx Model.
+     */
+	public SXWriter(OutputStream stream) throws IOException
+	{
+		this.out = new BufferedWriter(new OutputStreamWriter(stream, format.getEncoding()), 1 << 16);
+		this.closeOut = false;
+	}
+
+	 /**
+     * Write the XML declaration and the opening tag of the root element.
+     *
+     * @param sx
+     * 				The SpaceEx Model that owns the components (its root element is written,
+     * 				without its content).
+     */
+	public void startModel(SxSspaceex sx) throws IOException
+	{
+		Element element = sx.getDocument().getRootElement();
+		this.root = element.getQualifiedName();
+		out.write("<?xml version=\"1.0\" encoding=\"" + format.getEncoding() + "\"?>");
+		out.write(eol);
+		startTag(out, element);
+		out.write('>');
+		out.write(eol);
+	}
+
+	 /**
+     * Write a component (or any element of the Model) and all its content.
+     *
+     * @param element
+     * 				The element to write.
+     * @param level
+     * 				The depth of the element (1 for the components).
+     */
+	public void write(SxElement element, int level) throws IOException
+	{
+		print(out, element.getElement(), level);
+	}
+
+	 /**
+     * Write the closing tag of the root element and close the file.
+     */
+	public void endModel() throws IOException
+	{
+		out.write("</" + root + ">");
+		out.write(eol);
+		out.write(eol);
+		close();
+	}
+
+	 /**
+     * Close the file without completing the Model (i.e. the translation gives way to the
+     * JDOM backend). A stream given by the caller is just flushed.
+     */
+	public void close() throws IOException
+	{
+		if (closeOut)
+			out.close();
+		else
+			out.flush();
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Print an element and its content at the given depth
+	private void print(Writer w, Element element, int level) throws IOException
+	{
+		indent(w, level);
+		startTag(w, element);
+		List<?> content = element.getContent();
+		// Mixed content: each child element (and each trimmed text) on its own line
+		boolean mixed = false;
+		String text = "";
+		for (Object node : content)
+			if (node instanceof Text)
+				text += ((Text) node).getText();
+			else
+				mixed = true;
+		if (!mixed)
+		{
+			text = trim(text);
+			if (text.isEmpty())
+			{
+				if (format.getExpandEmptyElements())
+					w.write("></" + element.getQualifiedName() + ">");
+				else
+					w.write(" />");
+			}
+			else
+				w.write(">" + outputter.escapeElementEntities(text) + "</" + element.getQualifiedName() + ">");
+			w.write(eol);
+			return;
+		}
+		w.write('>');
+		w.write(eol);
+		StringBuilder run = null;
+		for (Object node : content)
+		{
+			if (node instanceof Text)
+			{
+				if (run == null)
+					run = new StringBuilder();
+				run.append(((Text) node).getText());
+				continue;
+			}
+			printText(w, run, level + 1);
+			run = null;
+			if (node instanceof Element)
+				print(w, (Element) node, level + 1);
+			else
+			{
+				// Comments, processing instructions... (not produced by the Factory)
+				indent(w, level + 1);
+				w.write(outputter.outputString(Collections.singletonList(node)));
+				w.write(eol);
+			}
+		}
+		printText(w, run, level + 1);
+		indent(w, level);
+		w.write("</" + element.getQualifiedName() + ">");
+		w.write(eol);
+	}
+
+	// Print a run of text of a mixed content on its own line (nothing if it is all white)
+	private void printText(Writer w, StringBuilder run, int level) throws IOException
+	{
+		if (run == null)
+			return;
+		String text = trim(run.toString());
+		if (text.isEmpty())
+			return;
+		indent(w, level);
+		w.write(outputter.escapeElementEntities(text));
+		w.write(eol);
+	}
+
+	// Print the opening tag of an element, without the closing '>'
+	private void startTag(Writer w, Element element) throws IOException
+	{
+		w.write('<');
+		w.write(element.getQualifiedName());
+		// Namespace declared by the root only: the components are in the same namespace
+		if (element.isRootElement() && !element.getNamespaceURI().isEmpty())
+		{
+			String prefix = element.getNamespacePrefix();
+			w.write(prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix);
+			w.write("=\"" + outputter.escapeAttributeEntities(element.getNamespaceURI()) + "\"");
+		}
+		for (Object obj : element.getAttributes())
+		{
+			Attribute attribute = (Attribute) obj;
+			w.write(' ');
+			w.write(attribute.getQualifiedName());
+			w.write("=\"");
+			w.write(outputter.escapeAttributeEntities(attribute.getValue()));
+			w.write('"');
+		}
+	}
+
+	private void indent(Writer w, int level) throws IOException
+	{
+		String indent = format.getIndent();
+		if (indent == null)
+			return;
+		for (int i=0; i<level; i++)
+			w.write(indent);
+	}
+
+	// Trim the XML white spaces (as the JDOM TRIM text mode)
+	private static String trim(String text)
+	{
+		int start = 0;
+		int end = text.length();
+		while (start < end && isWhite(text.charAt(start)))
+			start++;
+		while (end > start && isWhite(text.charAt(end - 1)))
+			end--;
+		return text.substring(start, end);
+	}
+
+	private static boolean isWhite(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+}
@@ -0,0 +1,493 @@
+package sl2sx;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ *
+ * Class to model the signal graph of a (Sub)System: each port (Block Input or Output
+ * variable, In/OutPort, Goto tag) is a node identified by a dense integer index, and
+ * its attributes are stored in parallel primitive arrays. A node is mapped to the
+ * variable that drives it, by the id of its name in the Symbol Table; the nodes are
+ * found by name id through an open-addressing index, so building and walking the
+ * wiring does not build Strings nor allocate objects. The Variables are views over
+ * the nodes (see Variable).
+ */
+public class SignalGraph {
+
+	// Flags of a node
+	public static final int INPUT = 1;
+	public static final int OUTPUT = 2;
+	public static final int INPORT = 4;
+	public static final int OUTPORT = 8;
+	public static final int SCOPE = 16;
+	public static final int HIDE = 32;
+	public static final int WEST = 64;
+	public static final int CONTROLLED = 128;
+
+	// Names of the nodes
+	private SymbolTable symbols;
+	// Number of the nodes
+	private int size = 0;
+	// For each node: id of the name, id of the name of the mapped variable, flags and position
+	private int[] names = new int[16];
+	private int[] maps = new int[16];
+	private int[] flags = new int[16];
+	private int[] xPos = new int[16];
+	private int[] yPos = new int[16];
+	// For each node: points of the connection (Simulink format) and link, null if empty
+	private String[] points = new String[16];
+	private Polyline[] links = new Polyline[16];
+	// Index: id of the name --> node (linear probing, -1 for the free slots)
+	private int[] index = newIndex(32);
+
+	 /**
+     * Default constructor.
+     *
+     * @param symbols
+     * 				The Symbol Table that contains the names of the nodes.
+     */
+	public SignalGraph(SymbolTable symbols)
+	{
+		this.symbols = symbols;
+	}
+
+	 /**
+     * Set the Symbol Table that contains the names of the nodes (before any node is added).
+     *
+     * @param symbols
+     * 				The SymbolTable of the translation.
+     */
+	public void setSymbols(SymbolTable symbols)
+	{
+		this.symbols = symbols;
+	}
+
+	/**
+     * Get the Symbol Table that contains the names of the nodes.
+     * @return The SymbolTable of the graph.
+     */
+	public SymbolTable getSymbols()
+	{
+		return this.symbols;
+	}
+
+	 /**
+     * Add a node, mapped to itself and without connection. If a node with the
+     * same name exists, it is reset and keeps its index.
+     *
+     * @param name
+     * 				The id of the name of the node.
+     * @param flags
+     * 				The flags of the node (INPUT, OUTPUT, ...).
+     * @param x
+     * 				Horizontal Position of the node.
+     * @param y
+     * 				Vertical Position of the node.
+     * @return The index of the node.
+     */
+	public int add(int name, int flags, int x, int y)
+	{
+		int node = nodeOf(name);
+		if (node == -1)
+		{
+			if (size == names.length)
+				grow();
+			node = size++;
+			names[node] = name;
+			if (2 * size > index.length)
+				reindex(2 * index.length);
+			else
+				insert(node);
+		}
+		this.maps[node] = name;
+		this.flags[node] = flags;
+		this.xPos[node] = x;
+		this.yPos[node] = y;
+		this.points[node] = null;
+		this.links[node] = null;
+		return node;
+	}
+
+	 /**
+     * Get a node by the id of its name.
+     *
+     * @param name
+     * 				The id of the name of the node.
+     * @return The index of the node, -1 if not present.
+     */
+	public int nodeOf(int name)
+	{
+		int mask = index.length - 1;
+		for (int i = hash(name) & mask; index[i] != -1; i = (i + 1) & mask)
+			if (names[index[i]] == name)
+				return index[i];
+		return -1;
+	}
+
+	/**
+     * Get the number of the nodes.
+     * @return The number of the ports of the (Sub)System.
+     */
+	public int size()
+	{
+		return this.size;
+	}
+
+	 /**
+     * Get the id of the name of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The id of the name.
+     */
+	public int getName(int node)
+	{
+		return this.names[node];
+	}
+
+	 /**
+     * Rename a node (it is mapped to itself again).
+     *
+     * @param node
+     * 				The index of the node.
+     * @param name
+     * 				The id of the new name.
+     */
+	public void setName(int node, int name)
+	{
+		this.names[node] = name;
+		this.maps[node] = name;
+		reindex(index.length);
+	}
+
+	 /**
+     * Get the variable mapped to a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The id of the name of the mapped variable.
+     */
+	public int getMap(int node)
+	{
+		return this.maps[node];
+	}
+
+	 /**
+     * Map a node to a variable.
+     *
+     * @param node
+     * 				The index of the node.
+     * @param name
+     * 				The id of the name of the mapped variable.
+     */
+	public void setMap(int node, int name)
+	{
+		this.maps[node] = name;
+	}
+
+	 /**
+     * Get the node mapped to a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The index of the mapped node, -1 if the mapped variable is not a node.
+     */
+	public int getSource(int node)
+	{
+		return nodeOf(this.maps[node]);
+	}
+
+	 /**
+     * Check a flag of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @param flag
+     * 				The flag to check (INPUT, OUTPUT, ...).
+     * @return True, if the flag is set.
+     */
+	public boolean is(int node, int flag)
+	{
+		return (this.flags[node] & flag) != 0;
+	}
+
+	 /**
+     * Set or clear a flag of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @param flag
+     * 				The flag to set (INPUT, OUTPUT, ...).
+     * @param on
+     * 				If True the flag is set, otherwise it is cleared.
+     */
+	public void setFlag(int node, int flag, boolean on)
+	{
+		if (on)
+			this.flags[node] |= flag;
+		else
+			this.flags[node] &= ~flag;
+	}
+
+	 /**
+     * Get the Horizontal Position of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The Horizontal Position.
+     */
+	public int getX(int node)
+	{
+		return this.xPos[node];
+	}
+
+	 /**
+     * Get the Vertical Position of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The Vertical Position.
+     */
+	public int getY(int node)
+	{
+		return this.yPos[node];
+	}
+
+	 /**
+     * Set the Position of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @param x
+     * 				Horizontal Position.
+     * @param y
+     * 				Vertical Position.
+     */
+	public void setPosition(int node, int x, int y)
+	{
+		this.xPos[node] = x;
+		this.yPos[node] = y;
+	}
+
+	 /**
+     * Get the points of the connection of a node, as defined in the Simulink model.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The points (empty if not present).
+     */
+	public String getPoints(int node)
+	{
+		return (this.points[node] == null) ? "" : this.points[node];
+	}
+
+	 /**
+     * Set the points of the connection of a node (source of the connection).
+     *
+     * @param node
+     * 				The index of the node.
+     * @param points
+     * 				Line Graphical Vertex.
+     */
+	public void setPoints(int node, String points)
+	{
+		this.points[node] = points;
+	}
+
+	 /**
+     * Append the points of the connection of a node (destination of the connection).
+     *
+     * @param node
+     * 				The index of the node.
+     * @param points
+     * 				Line Graphical Vertex, for each Branch.
+     * @param length
+     * 				Number of the Branches to follow.
+     */
+	public void addPoints(int node, ArrayList<String> points, int length)
+	{
+		if (length == 0)
+			return;
+		StringBuilder sb = new StringBuilder(getPoints(node));
+		for (int i=0; i<length; i++)
+			sb.append(points.get(i));
+		this.points[node] = sb.toString();
+	}
+
+	 /**
+     * Get the link (SpaceEx graphical shape) of the connection of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The link (empty if not present).
+     */
+	public String getLink(int node)
+	{
+		return (this.links[node] == null) ? "" : this.links[node].toString();
+	}
+
+	 /**
+     * Set the link (SpaceEx graphical shape) of the connection of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @param link
+     * 				Line Graphical Shape, defined by vertex.
+     */
+	public void setLink(int node, String link)
+	{
+		setPolyline(node, Polyline.valueOf(link));
+	}
+
+	 /**
+     * Get the link of the connection of a node, as a Polyline. The Polyline may be
+     * shared with other nodes (see normalizeVars), so it must not be modified.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The link (null if not present).
+     */
+	public Polyline getPolyline(int node)
+	{
+		return this.links[node];
+	}
+
+	 /**
+     * Set the link of the connection of a node, as a Polyline.
+     *
+     * @param node
+     * 				The index of the node.
+     * @param link
+     * 				Line Graphical Shape (null or empty if not present).
+     */
+	public void setPolyline(int node, Polyline link)
+	{
+		this.links[node] = (link == null || link.isEmpty()) ? null : link;
+	}
+
+	 /**
+     * Get a view of a node.
+     *
+     * @param node
+     * 				The index of the node.
+     * @return The Variable that models the node.
+     */
+	public Variable getVar(int node)
+	{
+		return new Variable(this, node);
+	}
+
+	 /**
+     * Write the graph on a binary stream (see SXDataCache). The points are not written:
+     * the links are yet computed.
+     *
+     * @param out
+     * 				The stream.
+     */
+	void write(DataOutputStream out) throws IOException
+	{
+		out.writeInt(size);
+		for (int node=0; node<size; node++)
+		{
+			out.writeInt(names[node]);
+			out.writeInt(maps[node]);
+			out.writeInt(flags[node]);
+			out.writeInt(xPos[node]);
+			out.writeInt(yPos[node]);
+			Polyline link = links[node];
+			int vertices = (link == null) ? 0 : link.getVertexNum();
+			out.writeInt(vertices);
+			for (int i=0; i<vertices; i++)
+			{
+				out.writeInt(link.getX(i));
+				out.writeInt(link.getY(i));
+			}
+		}
+	}
+
+	 /**
+     * Read a graph written by write.
+     *
+     * @param in
+     * 				The stream.
+     * @param symbols
+     * 				The Symbol Table that contains the names of the nodes.
+     * @return The graph.
+     */
+	static SignalGraph read(DataInputStream in, SymbolTable symbols) throws IOException
+	{
+		SignalGraph graph = new SignalGraph(symbols);
+		int size = in.readInt();
+		for (int i=0; i<size; i++)
+		{
+			int name = in.readInt();
+			int map = in.readInt();
+			int flags = in.readInt();
+			int x = in.readInt();
+			int y = in.readInt();
+			int node = graph.add(name, flags, x, y);
+			graph.setMap(node, map);
+			int vertices = in.readInt();
+			if (vertices > 0)
+			{
+				Polyline link = new Polyline();
+				for (int j=0; j<vertices; j++)
+					link.add(in.readInt(), in.readInt());
+				graph.setPolyline(node, link);
+			}
+		}
+		return graph;
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Double the capacity of the arrays of the nodes
+	private void grow()
+	{
+		int capacity = 2 * names.length;
+		names = Arrays.copyOf(names, capacity);
+		maps = Arrays.copyOf(maps, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		xPos = Arrays.copyOf(xPos, capacity);
+		yPos = Arrays.copyOf(yPos, capacity);
+		points = Arrays.copyOf(points, capacity);
+		links = Arrays.copyOf(links, capacity);
+	}
+
+	// Rebuild the index with the given capacity (a power of 2)
+	private void reindex(int capacity)
+	{
+		index = newIndex(capacity);
+		for (int node=0; node<size; node++)
+			insert(node);
+	}
+
+	// Add a node to the index
+	private void insert(int node)
+	{
+		int mask = index.length - 1;
+		int i = hash(names[node]) & mask;
+		while (index[i] != -1)
+			i = (i + 1) & mask;
+		index[i] = node;
+	}
+
+	// Empty index
+	private static int[] newIndex(int capacity)
+	{
+		int[] index = new int[capacity];
+		Arrays.fill(index, -1);
+		return index;
+	}
+
+	// Spread the ids (consecutive ids would fill consecutive slots)
+	private static int hash(int name)
+	{
+		int h = name * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
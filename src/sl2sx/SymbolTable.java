@@ -0,0 +1,215 @@
+package sl2sx;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ *
+ * Class to model the Symbol Table of a translation: each Block, Port and Variable
+ * name is normalized and stored once, and identified by a compact integer id.
+ * The names of the port variables ("blockname" + ("In" || "Out") + portNum) are
+ * built once per block and port, so that the lookups do not allocate new keys.
+ * The table is shared by the (Sub)Systems parsed in parallel (see SLParallelParser),
+ * so its methods are synchronized.
+ */
+public class SymbolTable {
+
+	// Name --> id
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	// id --> Name
+	private ArrayList<String> names = new ArrayList<String>();
+	// Simulink (raw) Block Name --> id of the normalized name
+	private HashMap<String, Integer> rawBlocks = new HashMap<String, Integer>();
+	// For each id of a block: ids of its Input and Output port variables (null if not yet used)
+	private ArrayList<int[]> inVars = new ArrayList<int[]>();
+	private ArrayList<int[]> outVars = new ArrayList<int[]>();
+	// Names of the parameters of the Base Components: "In1", "In2", ... and "Out1", "Out2", ...
+	private ArrayList<String> inNames = new ArrayList<String>();
+	private ArrayList<String> outNames = new ArrayList<String>();
+
+	 /**
+     * Add a name to the table (if not yet present).
+     *
+     * @param name
+     * 				The name to add.
+     * @return The id of the name.
+     */
+	public synchronized int intern(String name)
+	{
+		Integer id = ids.get(name);
+		if (id == null)
+		{
+			id = names.size();
+			ids.put(name, id);
+			names.add(name);
+			inVars.add(null);
+			outVars.add(null);
+		}
+		return id;
+	}
+
+	 /**
+     * Add a Simulink Block name to the table: the name is normalized (spaces and
+     * dashes are replaced by underscores) once for each different raw name.
+     *
+     * @param rawName
+     * 				The Block name as written in the Simulink file.
+     * @return The id of the normalized name.
+     */
+	public synchronized int internBlock(String rawName)
+	{
+		Integer id = rawBlocks.get(rawName);
+		if (id == null)
+		{
+			id = intern(rawName.replace(" ", "_").replace("-", "_"));
+			rawBlocks.put(rawName, id);
+		}
+		return id;
+	}
+
+	 /**
+     * Get the id of a name.
+     *
+     * @param name
+     * 				The name to look for.
+     * @return The id of the name, -1 if not present.
+     */
+	public synchronized int getId(String name)
+	{
+		Integer id = ids.get(name);
+		return (id == null) ? -1 : id;
+	}
+
+	 /**
+     * Get a name by id.
+     *
+     * @param id
+     * 				The id of the name.
+     * @return The name.
+     */
+	public synchronized String getName(int id)
+	{
+		return names.get(id);
+	}
+
+	 /**
+     * Get the id of the variable that models an Input port of a Block ("blockname" + "In" + port).
+     *
+     * @param blockId
+     * 				The id of the Block name.
+     * @param port
+     * 				The port index (starting from 1).
+     * @return The id of the variable name.
+     */
+	public synchronized int inPortVar(int blockId, int port)
+	{
+		return portVar(inVars, blockId, port, "In");
+	}
+
+	 /**
+     * Get the id of the variable that models an Output port of a Block ("blockname" + "Out" + port).
+     *
+     * @param blockId
+     * 				The id of the Block name.
+     * @param port
+     * 				The port index (starting from 1).
+     * @return The id of the variable name.
+     */
+	public synchronized int outPortVar(int blockId, int port)
+	{
+		return portVar(outVars, blockId, port, "Out");
+	}
+
+	 /**
+     * Get the name of an Input parameter of a Base Component ("In" + port).
+     *
+     * @param port
+     * 				The port index (starting from 1).
+     * @return The parameter name.
+     */
+	public synchronized String inName(int port)
+	{
+		return portName(inNames, port, "In");
+	}
+
+	 /**
+     * Get the name of an Output parameter of a Base Component ("Out" + port).
+     *
+     * @param port
+     * 				The port index (starting from 1).
+     * @return The parameter name.
+     */
+	public synchronized String outName(int port)
+	{
+		return portName(outNames, port, "Out");
+	}
+
+	 /**
+     * Get the number of the names in the table.
+     *
+     * @return The number of the different names.
+     */
+	public synchronized int size()
+	{
+		return names.size();
+	}
+
+	 /**
+     * Write the names on a binary stream, in id order (see SXDataCache).
+     *
+     * @param out
+     * 				The stream.
+     */
+	synchronized void write(DataOutputStream out) throws IOException
+	{
+		out.writeInt(names.size());
+		for (String name : names)
+			SXDataCache.writeString(out, name);
+	}
+
+	 /**
+     * Read a table written by write: the names keep their ids.
+     *
+     * @param in
+     * 				The stream.
+     * @return The Symbol Table.
+     */
+	static SymbolTable read(DataInputStream in) throws IOException
+	{
+		SymbolTable symbols = new SymbolTable();
+		int size = in.readInt();
+		for (int i=0; i<size; i++)
+			symbols.intern(SXDataCache.readString(in));
+		return symbols;
+	}
+
+	// ----------------------------->> Private Methods
+
+	// Get (and create, the first time) the id of a port variable
+	private int portVar(ArrayList<int[]> vars, int blockId, int port, String label)
+	{
+		int[] ports = vars.get(blockId);
+		if (ports == null || ports.length < port)
+		{
+			int[] newPorts = new int[Math.max(port, 2)];
+			Arrays.fill(newPorts, -1);
+			if (ports != null)
+				System.arraycopy(ports, 0, newPorts, 0, ports.length);
+			ports = newPorts;
+			vars.set(blockId, ports);
+		}
+		if (ports[port - 1] == -1)
+			ports[port - 1] = intern(names.get(blockId) + label + port);
+		return ports[port - 1];
+	}
+
+	// Get (and create, the first time) the name of a port parameter
+	private static String portName(ArrayList<String> portNames, int port, String label)
+	{
+		while (portNames.size() < port)
+			portNames.add(label + (portNames.size() + 1));
+		return portNames.get(port - 1);
+	}
+}
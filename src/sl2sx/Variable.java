@@ -3,44 +3,20 @@ import java.util.ArrayList;
 
 /**
  * 
- * Class to model a Simulink/SpaceEx Variable.
+ * Class to model a Simulink/SpaceEx Variable: a view over a node of the
+ * Signal Graph of a (Sub)System (see SignalGraph).
  * 
  * @author stefano.minopoli
  */
 public class Variable {
 	
-	// Variable Name
-	private String name=new String();
-	// Nome of the variable linked to *this
-	private String varMap=new String();
-	// Points: directly from SL model
-	private String points=new String();
-	// Effective connecting path between *this and the mapped variable
-	private String link=new String();
-	// X Position
-	private String xPos=new String();
-	// Y Position
-	private String yPos=new String();	
-	// For controlled variable
-	private boolean controlled=false;
-	// Identify an Input Variable
-	private boolean input=false;
-	// Identify an Output Variable
-	private boolean output=false;
-	// Identify an OutPort variable
-	private boolean outPort=false;
-	// Identify an InPort variable
-	private boolean inPort=false;
-	// Identify visible/not visible (in the Editor) Variable
-	private boolean hide=false;
-	// Identify a Scope variable
-	private boolean scope=false;
-	// Side Position
-	private boolean westPlacement=false;
+	// The Signal Graph that stores the Variable, and the index of its node
+	private SignalGraph graph;
+	private int node;
 	
 
 	 /**
-     * Default constructor.
+     * Default constructor: the Variable is stored in a Signal Graph of its own.
      * 
      * @param varName
      * 				The Name of the Variable.
@@ -66,18 +42,65 @@ public class Variable {
      */
 	public Variable(String varName, boolean input, boolean output, boolean inPort, boolean outPort, boolean scope, String xPos, String yPos, boolean hide)
 	{
-		this.name = varName;
-		this.varMap = varName;
-		this.input = input;
-		this.output = output;
-		this.outPort = outPort;
-		this.scope = scope;
-		this.inPort = inPort;
-		this.xPos = xPos;
-		this.yPos = yPos;
-		this.hide = hide;		
+		this(varName, input, output, inPort, outPort, scope, Integer.parseInt(xPos), Integer.parseInt(yPos), hide);
+	}
+	
+	 /**
+     * Constructor with the Graphical Position as Integers: the Variable is stored in a
+     * Signal Graph of its own.
+     * 
+     * @param varName
+     * 				The Name of the Variable (see the Default constructor).
+     * @param input
+     * 				If True, the variable models an Input Block Variable.
+     * @param output
+     * 				If True, the variable models an Output Block Variable.
+     * @param inport
+     * 				If True, the variable models an Inport Block Type.
+     * @param outport
+     * 				If True, the variable models an Outport Block Type.
+     * @param xPos
+     * 				Specifies the x-upper left vertex of the graphical block.
+     * @param yPos
+     * 				Specifies the y-upper left vertex of the graphical block.
+     * @param hide
+     * 				If True, the variable will be not shown in the Grapphical Model Editor
+     */
+	public Variable(String varName, boolean input, boolean output, boolean inPort, boolean outPort, boolean scope, int xPos, int yPos, boolean hide)
+	{
+		this.graph = new SignalGraph(new SymbolTable());
+		this.node = graph.add(graph.getSymbols().intern(varName), 0, xPos, yPos);
+		graph.setFlag(node, SignalGraph.INPUT, input);
+		graph.setFlag(node, SignalGraph.OUTPUT, output);
+		graph.setFlag(node, SignalGraph.INPORT, inPort);
+		graph.setFlag(node, SignalGraph.OUTPORT, outPort);
+		graph.setFlag(node, SignalGraph.SCOPE, scope);
+		graph.setFlag(node, SignalGraph.HIDE, hide);
 	} 
 	
+	 /**
+     * View of a node of a Signal Graph.
+     * 
+     * @param graph
+     * 				The Signal Graph that stores the Variable.
+     * @param node
+     * 				The index of the node.
+     */
+	Variable(SignalGraph graph, int node)
+	{
+		this.graph = graph;
+		this.node = node;
+	}
+	
+	/**
+     * Get the index of the node that stores the Variable in its Signal Graph.
+     * @return The index of the node.
+     */
+	public int getNode()
+	{
+		return this.node;
+	}
+	
 	 /**
      * Set the Variable Name.
      * 
@@ -86,8 +109,7 @@ public class Variable {
      */
 	public void setName(String varName)
 	{
-		this.name = varName;
-		this.varMap = varName;
+		graph.setName(node, graph.getSymbols().intern(varName));
 	}
 	
 	
@@ -97,7 +119,7 @@ public class Variable {
      */
 	public String getName() 
 	{
-		return this.name;
+		return graph.getSymbols().getName(graph.getName(node));
 	}
 	
 	 /**
@@ -108,7 +130,7 @@ public class Variable {
      */
 	public void setXPos(String x)
 	{
-		this.xPos = x;
+		graph.setPosition(node, Integer.parseInt(x), graph.getY(node));
 	}
 	
 	 /**
@@ -118,7 +140,7 @@ public class Variable {
      * 				Vertical Position of the Variable.
      */	public void setYPos(String y)
 	{
-		this.yPos = y;
+		graph.setPosition(node, graph.getX(node), Integer.parseInt(y));
 	}
 	
  	/**
@@ -127,7 +149,7 @@ public class Variable {
      */
 	public String getXPos()
 	{
-		return this.xPos;
+		return String.valueOf(graph.getX(node));
 	}
 	
 	/**
@@ -135,14 +157,45 @@ public class Variable {
      * @return A String that is Vertical Graphical Position of the Variable.
      */	public String getYPos()
 	{
-		return this.yPos;
+		return String.valueOf(graph.getY(node));
+	}
+	
+ 	/**
+     * Get the Horizontal Graphical Position of the Variable.
+     * @return An Integer that is Horizontal Graphical Position of the Variable.
+     */
+	public int getX()
+	{
+		return graph.getX(node);
+	}
+	
+	/**
+     * Get the Vertical Graphical Position of the Variable.
+     * @return An Integer that is Vertical Graphical Position of the Variable.
+     */
+	public int getY()
+	{
+		return graph.getY(node);
+	}
+	
+	 /**
+     * Set the Graphical Position of the variable.
+     * 
+     * @param x
+     * 				Horizontal Position of the Variable.
+     * @param y
+     * 				Vertical Position of the Variable.
+     */
+	public void setPosition(int x, int y)
+	{
+		graph.setPosition(node, x, y);
 	}
 	
     /**
       * Set *this as Input Variable
       */	public void setInput()
  	{
- 		this.input = true;
+ 		graph.setFlag(node, SignalGraph.INPUT, true);
  	}
      
  	/**
@@ -151,14 +204,14 @@ public class Variable {
      */
 	public boolean isInput()
 	{
-		return this.input;
+		return graph.is(node, SignalGraph.INPUT);
 	}
 	
 	/**
      * Set *this as Output Variable
      */	public void setOutput()
 	{
-		this.output = true;
+		graph.setFlag(node, SignalGraph.OUTPUT, true);
 	}
 	
  	/**
@@ -167,14 +220,14 @@ public class Variable {
      */
 	public boolean isOutput()
 	{
-		return this.output;
+		return graph.is(node, SignalGraph.OUTPUT);
 	}
 	
 	/**
      * Set *this as Outport Block Variable
      */	public void setOutport()
 	{
-		this.outPort = true;
+		graph.setFlag(node, SignalGraph.OUTPORT, true);
 	}
 	
  	/**
@@ -183,14 +236,14 @@ public class Variable {
      */
 	public boolean isOutPort()
 	{
-		return this.outPort;
+		return graph.is(node, SignalGraph.OUTPORT);
 	}
 	
 	/**
      * Set *this as Inport Block Variable
      */	public void setInport()
 	{
-		this.inPort = true;
+		graph.setFlag(node, SignalGraph.INPORT, true);
 	}
 	
 	/**
@@ -199,7 +252,7 @@ public class Variable {
      */
 	public boolean isInPort()
 	{
-		return this.inPort;
+		return graph.is(node, SignalGraph.INPORT);
 	}
 	
 	/**
@@ -208,14 +261,14 @@ public class Variable {
      */
 	public boolean isScope()
 	{
-		return this.scope;
+		return graph.is(node, SignalGraph.SCOPE);
 	}
 	
 	/**
      * Set *this as Hide Variable
      */	public void setHide()
 	{
-		this.hide = true;
+		graph.setFlag(node, SignalGraph.HIDE, true);
 	}
 	
 	/**
@@ -224,7 +277,7 @@ public class Variable {
      */
 	public boolean isHide()
 	{
-		return this.hide;
+		return graph.is(node, SignalGraph.HIDE);
 	}
 	
 	 /**
@@ -235,7 +288,7 @@ public class Variable {
      */
 	public void setMap(String varMap)
 	{
-		this.varMap=varMap;
+		graph.setMap(node, graph.getSymbols().intern(varMap));
 	}
 	
 	/**
@@ -244,7 +297,7 @@ public class Variable {
      */
 	public String getMap()
 	{
-		return this.varMap;
+		return graph.getSymbols().getName(graph.getMap(node));
 	}
 
 	 /**
@@ -255,7 +308,7 @@ public class Variable {
      */
 	public void addSrcPoints(String points)
 	{
-			this.points = points;
+		graph.setPoints(node, points);
 	}
 	
 	 /**
@@ -266,8 +319,7 @@ public class Variable {
      */
 	public void addDstPoints(ArrayList<String> points, int length)
 	{
-		for (int i=0; i<length; i++)
-			this.points = this.points + points.get(i);
+		graph.addPoints(node, points, length);
 	}
 	
 	 /**
@@ -278,8 +330,7 @@ public class Variable {
      */
 	public void setLink(String link)
 	{
-		this.link = link;
-
+		graph.setLink(node, link);
 	}
 	
 	/**
@@ -288,7 +339,7 @@ public class Variable {
      */
 	public String getLink()
 	{
-		return this.link;
+		return graph.getLink(node);
 	}
 	
 	/**
@@ -297,7 +348,7 @@ public class Variable {
      */
 	public String getPoints()
 	{
-		return this.points;
+		return graph.getPoints(node);
 	}
 	
 	 /**
@@ -309,7 +360,7 @@ public class Variable {
      */
 	public void setContolled(boolean controlled)
 	{
-		this.controlled = controlled;
+		graph.setFlag(node, SignalGraph.CONTROLLED, controlled);
 	}
 	
 	/**
@@ -318,7 +369,7 @@ public class Variable {
      */
 	public boolean isContolled()
 	{
-		return this.controlled;
+		return graph.is(node, SignalGraph.CONTROLLED);
 	}
 	
 	 /**
@@ -329,7 +380,7 @@ public class Variable {
      */
 	public void setWestPlacement(boolean westPlacement)
 	{
-			this.westPlacement = westPlacement;
+		graph.setFlag(node, SignalGraph.WEST, westPlacement);
 	}
 	
 	/**
@@ -338,7 +389,7 @@ public class Variable {
      */
 	public boolean isWestPlacement()
 	{
-		return this.westPlacement;
+		return graph.is(node, SignalGraph.WEST);
 	}
 		
 // End of Class	
@@ -0,0 +1,465 @@
+package sl2sx.exec;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import sl2sx.SLContentHandler;
+import sl2sx.SLSystem;
+import sl2sx.SignalGraph;
+import sl2sx.SymbolTable;
+import sl2sx.SLMappedParser;
+import sl2sx.SLMdlParser;
+import sl2sx.SLParallelParser;
+import sl2sx.SLStreamParser;
+import sl2sx.SXTranslation;
+
+/**
+ * Compare the front ends that fill the Internal Data Structure (parsing and
+ * post processing only, no SpaceEx Model is written): median and min time,
+ * throughput on the median, peak heap during the runs, and number of the element
+ * events skipped because they can not contribute to the SpaceEx Model.
+ * With -aliases, the normalization of chains of aliases of growing length is timed.
+ * With -check, the files are translated instead (twice by each front end, and by the
+ * streaming writer) and the SpaceEx Models must be byte-identical, and identical
+ * to the reference ones (SX_name.xml and SX_name.cfg next to the Simulink file), if any.
+ * With -regression, all the Simulink files of a directory (Examples by default) are checked,
+ * and each of them must have its reference SpaceEx Model.
+ *
+ * Usage: java -cp SL2SX_terminal.jar sl2sx.exec.RunBenchmark [-n runs] [-check] [-regression [dir]]
+ *            [-synthetic blocks] [-hierarchical subsystems blocks] [-aliases length] file.(xml|slx|mdl) ...
+ */
+public class RunBenchmark {
+
+	// A front end under benchmark
+	interface Frontend {
+		void parse(String fileName, SLContentHandler handler) throws Exception;
+	}
+
+	// Front ends for the .xml files
+	static final LinkedHashMap<String, Frontend> frontends = new LinkedHashMap<String, Frontend>();
+	// Front ends for the .slx and .mdl files
+	static final LinkedHashMap<String, Frontend> slxFrontends = new LinkedHashMap<String, Frontend>();
+	static final LinkedHashMap<String, Frontend> mdlFrontends = new LinkedHashMap<String, Frontend>();
+
+	static {
+		frontends.put("SAX", (fileName, handler) -> {
+			XMLReader saxReader = XMLReaderFactory.createXMLReader();
+			saxReader.setContentHandler(handler);
+			saxReader.parse(fileName);
+		});
+		frontends.put("StAX", (fileName, handler) -> new SLStreamParser(handler).parse(fileName));
+		frontends.put("Parallel", (fileName, handler) -> {
+			handler.setPool(ForkJoinPool.commonPool());
+			new SLParallelParser(handler).parse(fileName);
+		});
+		frontends.put("Mapped", (fileName, handler) -> new SLMappedParser(handler).parse(fileName));
+		slxFrontends.put("SLX", (fileName, handler) -> new SLStreamParser(handler).parseSlx(fileName));
+		mdlFrontends.put("MDL", (fileName, handler) -> new SLMdlParser(handler).parse(fileName));
+	}
+
+	// Get the front ends able to read a file
+	static LinkedHashMap<String, Frontend> frontendsFor(String fileName) {
+
+		if (SLStreamParser.isSlx(fileName))
+			return slxFrontends;
+		if (SLMdlParser.isMdl(fileName))
+			return mdlFrontends;
+		return frontends;
+	}
+
+	// Run all the front ends on a file and print the times, throughput and peak heap of each of them
+	public static void benchmark(String fileName, int runs, PrintStream out) throws Exception {
+
+		PrintStream stdOut = System.out;
+		long size = new File(fileName).length();
+		out.println(fileName + " (" + size / 1024 + " KB)");
+		if (frontendsFor(fileName) == frontends)
+			out.println("  " + new SLParallelParser(null).countParts(fileName) + " SubSystems parsed apart, "
+					+ Runtime.getRuntime().availableProcessors() + " processors");
+		for (Map.Entry<String, Frontend> entry : frontendsFor(fileName).entrySet())
+		{
+			long[] times = new long[runs];
+			long peakHeap = 0;
+			long skippedEvents = 0;
+			// The handlers are verbose: mute them during the runs
+			System.setOut(new PrintStream(new OutputStream() {
+				public void write(int b) {}
+				public void write(byte[] b, int off, int len) {}
+			}));
+			try {
+				// Warm-up run, then the measured ones
+				for (int i=-1; i<runs; i++)
+				{
+					resetPeakHeap();
+					SLContentHandler handler = new SLContentHandler();
+					handler.setTranslate(false);
+					long start = System.nanoTime();
+					entry.getValue().parse(fileName, handler);
+					if (i >= 0)
+					{
+						times[i] = System.nanoTime() - start;
+						peakHeap = Math.max(peakHeap, peakHeap());
+						skippedEvents = handler.getSkippedEvents();
+					}
+				}
+			} finally {
+				System.setOut(stdOut);
+			}
+			Arrays.sort(times);
+			out.printf("  %-8s median %8.2f ms   min %8.2f ms   %7.1f MB/s   peak heap %6.1f MB   skipped %d events%n", entry.getKey(),
+					times[runs/2] / 1e6, times[0] / 1e6, (size / 1048576.0) / (times[runs/2] / 1e9), peakHeap / 1048576.0, skippedEvents);
+		}
+	}
+
+	// Translate a file twice with each front end (and with the streaming writer) and check that the
+	// SpaceEx Model and Configuration are byte-identical: the files are written in the current directory.
+	// They are compared with the reference ones of the directory of the file, that must exist if required.
+	public static boolean checkOutput(String fileName, boolean referenceRequired, PrintStream out) throws Exception {
+
+		PrintStream stdOut = System.out;
+		out.println(fileName);
+		LinkedHashMap<String, Frontend> translations = new LinkedHashMap<String, Frontend>(frontendsFor(fileName));
+		if (frontendsFor(fileName) == frontends)
+			translations.put("SXWriter", (name, handler) -> {
+				handler.setStreamOutput(true);
+				new SLStreamParser(handler).parse(name);
+			});
+		byte[] model = null;
+		byte[] config = null;
+		String prefix = null;
+		boolean identical = true;
+		for (Map.Entry<String, Frontend> entry : translations.entrySet())
+		{
+			boolean same = true;
+			for (int i=0; i<2; i++)
+			{
+				SLContentHandler handler = new SLContentHandler();
+				// The handlers are verbose: mute them during the translation
+				System.setOut(new PrintStream(new OutputStream() {
+					public void write(int b) {}
+					public void write(byte[] b, int off, int len) {}
+				}));
+				try {
+					entry.getValue().parse(fileName, handler);
+				} finally {
+					System.setOut(stdOut);
+				}
+				prefix = "SX_" + handler.getSXData().getFileName();
+				byte[] currModel = readBytes(prefix + ".xml");
+				byte[] currConfig = readBytes(prefix + ".cfg");
+				if (model == null)
+				{
+					model = currModel;
+					config = currConfig;
+				}
+				else
+					same &= Arrays.equals(model, currModel) && Arrays.equals(config, currConfig);
+			}
+			out.printf("  %-9s %s%n", entry.getKey(), same ? "identical" : "DIFFERENT");
+			identical &= same;
+		}
+		// The in-memory translation (nothing written on disk) must give the same bytes
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {}
+			public void write(byte[] b, int off, int len) {}
+		}));
+		SXTranslation memory;
+		try {
+			memory = SXTranslation.translate(new File(fileName).toPath());
+		} finally {
+			System.setOut(stdOut);
+		}
+		boolean same = Arrays.equals(model, memory.getModel()) && Arrays.equals(config, memory.getConfig());
+		out.printf("  %-9s %s%n", "Memory", same ? "identical" : "DIFFERENT");
+		identical &= same;
+		// Regression: the reference SpaceEx Model (committed with the Simulink file)
+		File dir = new File(fileName).getAbsoluteFile().getParentFile();
+		File refModel = new File(dir, prefix + ".xml");
+		File refConfig = new File(dir, prefix + ".cfg");
+		if (refModel.exists() && refConfig.exists())
+		{
+			same = Arrays.equals(model, readBytes(refModel.getPath())) && Arrays.equals(config, readBytes(refConfig.getPath()));
+			out.printf("  %-9s %s%n", "Reference", same ? "identical" : "DIFFERENT");
+			identical &= same;
+		}
+		else if (referenceRequired)
+		{
+			out.printf("  %-9s %s%n", "Reference", "MISSING (" + refModel.getPath() + ")");
+			identical = false;
+		}
+		return identical;
+	}
+
+	// Simulink files of a directory and of its subdirectories (the SpaceEx Models are skipped)
+	public static void collectFiles(File dir, List<String> files) {
+
+		File[] entries = dir.listFiles();
+		if (entries == null)
+			return;
+		Arrays.sort(entries);
+		for (File entry : entries)
+		{
+			String name = entry.getName();
+			if (entry.isDirectory())
+				collectFiles(entry, files);
+			else if (!name.startsWith("SX_") && (name.endsWith(".xml") || SLStreamParser.isSlx(name) || SLMdlParser.isMdl(name)))
+				files.add(entry.getPath());
+		}
+	}
+
+	// Time the normalization of the Variables on chains of aliases of length/100, length/10 and length:
+	// the time per alias should stay about the same
+	public static void benchmarkAliases(int length, int runs, PrintStream out) {
+
+		out.println("Alias chains");
+		for (int n = Math.max(length / 100, 1); n <= length; n *= 10)
+		{
+			long[] times = new long[runs];
+			boolean resolved = true;
+			// Warm-up run, then the measured ones
+			for (int i=-1; i<runs; i++)
+			{
+				SLSystem sys = aliasChain(n);
+				long start = System.nanoTime();
+				sys.normalizeVars();
+				if (i >= 0)
+				{
+					times[i] = System.nanoTime() - start;
+					resolved &= isResolved(sys);
+				}
+			}
+			Arrays.sort(times);
+			out.printf("  %-8d median %8.2f ms   min %8.2f ms   %7.1f ns/alias   %s%n", n,
+					times[runs/2] / 1e6, times[0] / 1e6, (double) times[runs/2] / n, resolved ? "resolved" : "NOT resolved");
+		}
+	}
+
+	// A System with a chain of n aliases of the variable a0: a1 --> a0, a2 --> a1, ...
+	// The variables are created from the end of the chain, the worst order for a single pass.
+	// Only the first link has a geometry (the merged links grow with the chain).
+	private static SLSystem aliasChain(int n) {
+
+		SLSystem sys = new SLSystem("aliases", -1);
+		SymbolTable symbols = sys.getSymbols();
+		SignalGraph graph = sys.getGraph();
+		for (int i=n; i>=0; i--)
+		{
+			int node = graph.add(symbols.intern("a" + i), SignalGraph.INPUT, 0, 0);
+			if (i > 0)
+				graph.setMap(node, symbols.intern("a" + (i-1)));
+		}
+		graph.setLink(graph.nodeOf(symbols.getId("a1")), "10.0,20.0");
+		return sys;
+	}
+
+	// Check that all the aliases of a chain are mapped to a0, with the geometry of the first link
+	private static boolean isResolved(SLSystem sys) {
+
+		SignalGraph graph = sys.getGraph();
+		int a0 = sys.getSymbols().getId("a0");
+		for (int node=0; node<graph.size(); node++)
+			if (graph.getMap(node) != a0 || (graph.getName(node) != a0 && !graph.getLink(node).equals("10.0,20.0")))
+				return false;
+		return true;
+	}
+
+	// Content of a file
+	private static byte[] readBytes(String fileName) throws IOException {
+
+		File file = new File(fileName);
+		byte[] bytes = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(bytes);
+		} finally {
+			in.close();
+		}
+		return bytes;
+	}
+
+	// Collect the garbage and start a new measure of the peak heap
+	private static void resetPeakHeap() {
+
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				pool.resetPeakUsage();
+	}
+
+	// Peak heap since the last reset (sum of the peaks of the heap pools)
+	private static long peakHeap() {
+
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+
+	// Write a flat synthetic model: a chain of Gain blocks between an Inport and an Outport.
+	// Each block also carries the kind of content (port properties) that real exports have.
+	public static File writeSynthetic(int blocks) throws IOException {
+
+		File file = File.createTempFile("sl2sx_synthetic_" + blocks + "_", ".xml");
+		file.deleteOnExit();
+		PrintWriter w = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+		writeHeader(w);
+		w.println("    <System>");
+		writeChain(w, "      ", blocks);
+		w.println("    </System>");
+		writeFooter(w);
+		w.close();
+		return file;
+	}
+
+	// Write a hierarchical synthetic model: a chain of SubSystems, each one with a chain of Gain blocks
+	public static File writeHierarchical(int subSystems, int blocks) throws IOException {
+
+		File file = File.createTempFile("sl2sx_hierarchical_" + subSystems + "x" + blocks + "_", ".xml");
+		file.deleteOnExit();
+		PrintWriter w = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+		writeHeader(w);
+		w.println("    <System>");
+		w.println("      <Block BlockType=\"Inport\" Name=\"In\">");
+		w.println("        <P Name=\"Position\">[0, 0, 30, 20]</P>");
+		w.println("      </Block>");
+		for (int i=1; i<=subSystems; i++)
+		{
+			w.println("      <Block BlockType=\"SubSystem\" Name=\"Sub" + i + "\">");
+			w.println("        <P Name=\"Ports\">[1, 1]</P>");
+			w.println("        <P Name=\"Position\">[" + (100*i) + ", 0, " + (100*i+30) + ", 20]</P>");
+			w.println("        <System>");
+			writeChain(w, "          ", blocks);
+			w.println("        </System>");
+			w.println("      </Block>");
+		}
+		w.println("      <Block BlockType=\"Outport\" Name=\"Out\">");
+		w.println("        <P Name=\"Position\">[" + (100*subSystems+100) + ", 0, " + (100*subSystems+130) + ", 20]</P>");
+		w.println("      </Block>");
+		writeLines(w, "      ", "Sub", subSystems);
+		w.println("    </System>");
+		writeFooter(w);
+		w.close();
+		return file;
+	}
+
+	// Model header, with the Simulation Parameters and the Block Parameter Defaults
+	private static void writeHeader(PrintWriter w) {
+
+		w.println("<?xml version=\"1.0\" encoding=\"utf-8\"?>");
+		w.println("<ModelInformation Version=\"1.0\">");
+		w.println("  <Model Name=\"synthetic\">");
+		w.println("    <P Name=\"StartTime\">0.0</P>");
+		w.println("    <P Name=\"StopTime\">10</P>");
+		w.println("    <BlockParameterDefaults>");
+		w.println("      <Block BlockType=\"Gain\">");
+		w.println("        <P Name=\"Gain\">1</P>");
+		w.println("      </Block>");
+		w.println("    </BlockParameterDefaults>");
+	}
+
+	private static void writeFooter(PrintWriter w) {
+
+		w.println("  </Model>");
+		w.println("</ModelInformation>");
+	}
+
+	// Content of a System: Inport --> Gain1 --> ... --> GainN --> Outport
+	private static void writeChain(PrintWriter w, String indent, int blocks) {
+
+		w.println(indent + "<Block BlockType=\"Inport\" Name=\"In\">");
+		w.println(indent + "  <P Name=\"Position\">[0, 0, 30, 20]</P>");
+		w.println(indent + "</Block>");
+		for (int i=1; i<=blocks; i++)
+		{
+			w.println(indent + "<Block BlockType=\"Gain\" Name=\"Gain" + i + "\">");
+			w.println(indent + "  <P Name=\"Position\">[" + (100*i) + ", 0, " + (100*i+30) + ", 20]</P>");
+			w.println(indent + "  <P Name=\"Gain\">" + i + "</P>");
+			w.println(indent + "  <Port>");
+			w.println(indent + "    <P Name=\"PortNumber\">1</P>");
+			w.println(indent + "    <P Name=\"Name\">s" + i + "</P>");
+			w.println(indent + "  </Port>");
+			w.println(indent + "</Block>");
+		}
+		w.println(indent + "<Block BlockType=\"Outport\" Name=\"Out\">");
+		w.println(indent + "  <P Name=\"Position\">[" + (100*blocks+100) + ", 0, " + (100*blocks+130) + ", 20]</P>");
+		w.println(indent + "</Block>");
+		writeLines(w, indent, "Gain", blocks);
+	}
+
+	// Lines of a chain: In --> prefix1 --> ... --> prefixN --> Out
+	private static void writeLines(PrintWriter w, String indent, String prefix, int blocks) {
+
+		for (int i=0; i<=blocks; i++)
+		{
+			w.println(indent + "<Line>");
+			w.println(indent + "  <P Name=\"SrcBlock\">" + (i == 0 ? "In" : prefix + i) + "</P>");
+			w.println(indent + "  <P Name=\"SrcPort\">1</P>");
+			w.println(indent + "  <P Name=\"Points\">[20, 0; 20, 0]</P>");
+			w.println(indent + "  <P Name=\"DstBlock\">" + (i == blocks ? "Out" : prefix + (i+1)) + "</P>");
+			w.println(indent + "  <P Name=\"DstPort\">1</P>");
+			w.println(indent + "</Line>");
+		}
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+
+		int runs = 5;
+		int aliases = 0;
+		boolean check = false;
+		boolean regression = false;
+		ArrayList<String> files = new ArrayList<String>();
+		try {
+			for (int i=0; i<args.length; i++)
+			{
+				if (args[i].equals("-n"))
+					runs = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-check"))
+					check = true;
+				else if (args[i].equals("-regression"))
+				{
+					check = true;
+					regression = true;
+					// The directory is optional
+					String dir = i+1 < args.length && !args[i+1].startsWith("-") && new File(args[i+1]).isDirectory() ? args[++i] : "Examples";
+					collectFiles(new File(dir), files);
+				}
+				else if (args[i].equals("-synthetic"))
+					files.add(writeSynthetic(Integer.parseInt(args[++i])).getAbsolutePath());
+				else if (args[i].equals("-aliases"))
+					aliases = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-hierarchical"))
+				{
+					int subSystems = Integer.parseInt(args[++i]);
+					files.add(writeHierarchical(subSystems, Integer.parseInt(args[++i])).getAbsolutePath());
+				}
+				else
+					files.add(args[i]);
+			}
+			boolean identical = true;
+			for (String fileName : files)
+				if (check)
+					identical &= checkOutput(fileName, regression, System.out);
+				else
+					benchmark(fileName, runs, System.out);
+			if (!identical)
+				System.exit(1);
+			if (aliases > 0)
+				benchmarkAliases(aliases, runs, System.out);
+		} catch (Exception e) {
+			e.printStackTrace();
+			if (check)
+				System.exit(1);
+		}
+	}
+}
@@ -2,16 +2,26 @@ package sl2sx.exec;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.JFileChooser;
 import javax.swing.UIManager;
 import javax.swing.filechooser.FileFilter;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import sl2sx.SLContentHandler;
+import sl2sx.SLMappedParser;
+import sl2sx.SLMdlParser;
+import sl2sx.SLParallelParser;
+import sl2sx.SLStreamParser;
+import sl2sx.SXData;
+import sl2sx.SXDataCache;
 import fr.imag.verimag.spaceex_moe.utils.Utility;
 
 public class RunFromMathLab {
@@ -34,6 +44,10 @@ public class RunFromMathLab {
 					return false;
 				if (f.getName().endsWith(".xml"))
 					return true;
+				if (SLStreamParser.isSlx(f.getName()))
+					return true;
+				if (SLMdlParser.isMdl(f.getName()))
+					return true;
 				if (f.isDirectory())
 					return true;
 
@@ -59,15 +73,148 @@ public class RunFromMathLab {
 		return rf;
 	}
 
+	// A front end: it fills the Internal Data Structure of a Simulink file through the given handler
+	private interface Frontend {
+		void parse(String fileName, SLContentHandler handler) throws SAXException, XMLStreamException, IOException;
+	}
+
 	public static void parseTR(String uri) throws SAXException, IOException {
 
+		parseTR(uri, new SLContentHandler());
+
+	}
+
+	// Same as parseTR, with a given handler
+	private static void parseTR(String uri, SLContentHandler handler) throws SAXException, IOException {
+
 		XMLReader saxReader = XMLReaderFactory.createXMLReader();
 
-		saxReader.setContentHandler(new SLContentHandler());
+		saxReader.setContentHandler(handler);
 		saxReader.parse(uri);
 
 	}
 
+	// Same as parseTR, but with the StAX (pull parser) front end
+	public static void parseStAX(String fileName) throws XMLStreamException, IOException {
+
+		parseStAX(fileName, new SLContentHandler());
+
+	}
+
+	// Same as parseStAX, with a given handler
+	private static void parseStAX(String fileName, SLContentHandler handler) throws XMLStreamException, IOException {
+
+		new SLStreamParser(handler).parse(fileName);
+
+	}
+
+	// Same as parseStAX, but the large SubSystems are parsed in parallel, and the Base Components are built in parallel
+	public static void parseParallel(String fileName) throws XMLStreamException, IOException {
+
+		SLContentHandler handler = new SLContentHandler();
+		handler.setPool(ForkJoinPool.commonPool());
+		parseParallel(fileName, handler);
+
+	}
+
+	// Same as parseParallel, with a given handler (its pool builds the Base Components)
+	private static void parseParallel(String fileName, SLContentHandler handler) throws XMLStreamException, IOException {
+
+		new SLParallelParser(handler).parse(fileName);
+
+	}
+
+	// Same as parseTR, but the file is mapped in memory and scanned directly (for the huge files)
+	public static void parseMapped(String fileName) throws IOException {
+
+		parseMapped(fileName, new SLContentHandler());
+
+	}
+
+	// Same as parseMapped, with a given handler
+	private static void parseMapped(String fileName, SLContentHandler handler) throws IOException {
+
+		new SLMappedParser(handler).parse(fileName);
+
+	}
+
+	// Same as parseTR, but the SpaceEx Model is written component by component (no JDOM Document)
+	public static void parseSXWriter(String fileName) throws SAXException, IOException {
+
+		SLContentHandler handler = new SLContentHandler();
+		handler.setStreamOutput(true);
+		parseTR(fileName, handler);
+
+	}
+
+	// Translate a Simulink .slx file directly (no MATLAB export to .xml needed)
+	public static void parseSlx(String fileName) throws XMLStreamException, IOException {
+
+		parseSlx(fileName, new SLContentHandler());
+
+	}
+
+	// Same as parseSlx, with a given handler
+	private static void parseSlx(String fileName, SLContentHandler handler) throws XMLStreamException, IOException {
+
+		new SLStreamParser(handler).parseSlx(fileName);
+
+	}
+
+	// Translate a Simulink .mdl file directly (no MATLAB export to .xml needed)
+	public static void parseMdl(String fileName) throws IOException {
+
+		parseMdl(fileName, new SLContentHandler());
+
+	}
+
+	// Same as parseMdl, with a given handler
+	private static void parseMdl(String fileName, SLContentHandler handler) throws IOException {
+
+		new SLMdlParser(handler).parse(fileName);
+
+	}
+
+	// Same as parseTR, but the post processed Data Structure is cached: if the file did not
+	// change, it is translated without being parsed again
+	public static void parseCached(String fileName) throws SAXException, XMLStreamException, IOException {
+
+		parseCached(fileName, new SLContentHandler(), RunFromMathLab::parseTR);
+
+	}
+
+	// Same as parseCached, with a given handler (its options are used to write the SpaceEx Model)
+	// and the front end that parses the file if it is not in the cache
+	private static void parseCached(String fileName, SLContentHandler handler, Frontend frontend)
+			throws SAXException, XMLStreamException, IOException {
+
+		long start = System.nanoTime();
+		SXDataCache cache = new SXDataCache();
+		String key = cache.key(fileName);
+		SXData sxData = cache.load(key);
+		boolean hit = (sxData != null);
+		if (hit) {
+			System.out.println(">> STEP 2.   Internal Data Structure found in the cache.");
+			System.out.println();
+		} else {
+			// The SpaceEx Model is written below, from the cached Data Structure
+			handler.setTranslate(false);
+			frontend.parse(fileName, handler);
+			sxData = handler.getSXData();
+			cache.store(key, sxData);
+		}
+		long parsed = System.nanoTime();
+
+		handler.writeSXModel(sxData);
+		long end = System.nanoTime();
+
+		System.out.println();
+		System.out.println("Cache " + (hit ? "hit (warm)" : "miss (cold)") + ": "
+				+ (hit ? "load " : "parse ") + (parsed - start) / 1000000 + " ms, write "
+				+ (end - parsed) / 1000000 + " ms, total " + (end - start) / 1000000 + " ms.");
+
+	}
+
 	/**
 	 * @param args
 	 */
@@ -85,7 +232,7 @@ public class RunFromMathLab {
 			//System.out.println();
 			System.out.println("Welcome to SL2SX v.1.0");
 		    
-		    System.out.println(">> STEP 1. Choose the Simulink Diagram File in .xml Format...");
+		    System.out.println(">> STEP 1. Choose the Simulink Diagram File in .xml (or .slx, .mdl) Format...");
 			System.out.println();		
 
 			Utility.setLogEnable(false);
@@ -93,19 +240,76 @@ public class RunFromMathLab {
 		try {
 			//String fileName = "/Users/forets/Dropbox/recherche/synlin/tool/models/vanderpol/vanderpol-raw-simulink.xml";
 			//String fileName;
-			System.out.println(args[0]);
-			// check whether the argument was passed
-			parseTR(args[0]);
+			// Options (before the file name): -stax to use the StAX front end,
+			// -parallel to parse the large SubSystems and build the Base Components in parallel,
+			// -mmap to map the file in memory,
+			// -cache to reuse the Internal Data Structure of an unchanged file (with any front end),
+			// -sxwriter to write the SpaceEx Model component by component (no JDOM Document, with any front end)
+			boolean stax = false;
+			boolean parallel = false;
+			boolean mmap = false;
+			boolean cached = false;
+			boolean sxWriter = false;
+			for (int i=0; i<args.length-1; i++)
+				if (args[i].equals("-stax"))
+					stax = true;
+				else if (args[i].equals("-parallel"))
+					parallel = true;
+				else if (args[i].equals("-mmap"))
+					mmap = true;
+				else if (args[i].equals("-cache"))
+					cached = true;
+				else if (args[i].equals("-sxwriter"))
+					sxWriter = true;
+			String fileName = args[args.length-1];
+			System.out.println(fileName);
+			// The front end, and the options of the handler that writes the SpaceEx Model
+			// (-cache and -sxwriter apply to every front end)
+			SLContentHandler handler = new SLContentHandler();
+			Frontend frontend;
+			if (SLStreamParser.isSlx(fileName))
+				frontend = RunFromMathLab::parseSlx;
+			else if (SLMdlParser.isMdl(fileName))
+				frontend = RunFromMathLab::parseMdl;
+			else if (parallel) {
+				handler.setPool(ForkJoinPool.commonPool());
+				frontend = RunFromMathLab::parseParallel;
+			}
+			else if (mmap)
+				frontend = RunFromMathLab::parseMapped;
+			else if (stax)
+				frontend = RunFromMathLab::parseStAX;
+			else
+				frontend = RunFromMathLab::parseTR;
+			handler.setStreamOutput(sxWriter);
+			if (cached)
+				parseCached(fileName, handler, frontend);
+			else
+				frontend.parse(fileName, handler);
 			//parseTR(getLoadFile().getAbsolutePath());
 			
 			// on the command line, we should do: 
 			// java -jar SL2SX_terminal.jar /Users/forets/Dropbox/recherche/synlin/tool/models/vanderpol/vanderpol-raw-simulink.xml
+			// or, with the StAX front end:
+			// java -jar SL2SX_terminal.jar -stax /Users/forets/Dropbox/recherche/synlin/tool/models/vanderpol/vanderpol-raw-simulink.xml
+			// or, parsing the large SubSystems in parallel:
+			// java -jar SL2SX_terminal.jar -parallel /Users/forets/Dropbox/recherche/synlin/tool/models/vanderpol/vanderpol-raw-simulink.xml
+			// or, reusing the cached Internal Data Structure (~/.sl2sx/cache, or -Dsl2sx.cache.dir=...):
+			// java -jar SL2SX_terminal.jar -cache /Users/forets/Dropbox/recherche/synlin/tool/models/vanderpol/vanderpol-raw-simulink.xml
+			// or, also parsing the file in parallel when it is not in the cache:
+			// java -jar SL2SX_terminal.jar -parallel -cache /Users/forets/Dropbox/recherche/synlin/tool/models/vanderpol/vanderpol-raw-simulink.xml
 
 		} catch (SAXException e) {
 			e.printStackTrace();
+		} catch (XMLStreamException e) {
+			e.printStackTrace();
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
+		} catch (UncheckedIOException e) {
+			// The SpaceEx Model or its Configuration can not be written
+			System.out.println("Error: " + e.getCause());
+			System.exit(1);
 		}	
 		System.exit(0);
 	}
@@ -2,16 +2,23 @@ package sl2sx.exec;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import javax.swing.JFileChooser;
 import javax.swing.UIManager;
 import javax.swing.filechooser.FileFilter;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import sl2sx.SLContentHandler;
+import sl2sx.SLMappedParser;
+import sl2sx.SLMdlParser;
+import sl2sx.SLParallelParser;
+import sl2sx.SLStreamParser;
 import fr.imag.verimag.spaceex_moe.utils.Utility;
 
 public class RunStandAlone {
@@ -34,6 +41,10 @@ public class RunStandAlone {
 					return false;
 				if (f.getName().endsWith(".xml"))
 					return true;
+				if (SLStreamParser.isSlx(f.getName()))
+					return true;
+				if (SLMdlParser.isMdl(f.getName()))
+					return true;
 				if (f.isDirectory())
 					return true;
 
@@ -68,6 +79,50 @@ public class RunStandAlone {
 
 	}
 
+	// Same as parseTR, but with the StAX (pull parser) front end
+	public static void parseStAX(String fileName) throws XMLStreamException, IOException {
+
+		new SLStreamParser(new SLContentHandler()).parse(fileName);
+
+	}
+
+	// Same as parseStAX, but the large SubSystems are parsed in parallel
+	public static void parseParallel(String fileName) throws XMLStreamException, IOException {
+
+		new SLParallelParser(new SLContentHandler()).parse(fileName);
+
+	}
+
+	// Same as parseTR, but the file is mapped in memory and scanned directly (for the huge files)
+	public static void parseMapped(String fileName) throws IOException {
+
+		new SLMappedParser(new SLContentHandler()).parse(fileName);
+
+	}
+
+	// Same as parseStAX, but the SpaceEx Model is written component by component (no JDOM Document)
+	public static void parseSXWriter(String fileName) throws XMLStreamException, IOException {
+
+		SLContentHandler handler = new SLContentHandler();
+		handler.setStreamOutput(true);
+		new SLStreamParser(handler).parse(fileName);
+
+	}
+
+	// Translate a Simulink .slx file directly (no MATLAB export to .xml needed)
+	public static void parseSlx(String fileName) throws XMLStreamException, IOException {
+
+		new SLStreamParser(new SLContentHandler()).parseSlx(fileName);
+
+	}
+
+	// Translate a Simulink .mdl file directly (no MATLAB export to .xml needed)
+	public static void parseMdl(String fileName) throws IOException {
+
+		new SLMdlParser(new SLContentHandler()).parse(fileName);
+
+	}
+
 	/**
 	 * @param args
 	 */
@@ -83,19 +138,41 @@ public class RunStandAlone {
 			System.out.println("         *******************************************************************************************");
 			System.out.println();
 			System.out.println();
-			System.out.println(">> STEP 1. Choose the Simulink Diagram File in .xml Format...");
+			System.out.println(">> STEP 1. Choose the Simulink Diagram File in .xml (or .slx, .mdl) Format...");
 			System.out.println();		
 
 			Utility.setLogEnable(false);
 
 		try {
 			
-			parseTR(getLoadFile().getAbsolutePath());
+			String fileName = getLoadFile().getAbsolutePath();
+			// Option -stax to use the StAX front end, -parallel to parse the large SubSystems in parallel,
+			// -mmap to map the file in memory, -sxwriter to write the SpaceEx Model component by component
+			if (SLStreamParser.isSlx(fileName))
+				parseSlx(fileName);
+			else if (SLMdlParser.isMdl(fileName))
+				parseMdl(fileName);
+			else if (args.length > 0 && args[0].equals("-stax"))
+				parseStAX(fileName);
+			else if (args.length > 0 && args[0].equals("-parallel"))
+				parseParallel(fileName);
+			else if (args.length > 0 && args[0].equals("-mmap"))
+				parseMapped(fileName);
+			else if (args.length > 0 && args[0].equals("-sxwriter"))
+				parseSXWriter(fileName);
+			else
+				parseTR(fileName);
 		} catch (SAXException e) {
 			e.printStackTrace();
+		} catch (XMLStreamException e) {
+			e.printStackTrace();
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
+		} catch (UncheckedIOException e) {
+			// The SpaceEx Model or its Configuration can not be written
+			System.out.println("Error: " + e.getCause());
+			System.exit(1);
 		}	
 		System.exit(0);
 	}